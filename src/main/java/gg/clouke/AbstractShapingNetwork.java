@@ -1,7 +1,12 @@
 package gg.clouke;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Abstract class for the shaping network
@@ -10,9 +15,16 @@ import java.util.List;
  * @since 03.01.2024 20:42
  * © shape-network - All Rights Reserved
  */
-public class AbstractShapingNetwork {
+public class AbstractShapingNetwork implements Predictor {
+
+  private static final int[] NO_LAYERS = new int[0];
 
   protected final List<Layer> layers = new ArrayList<>();
+  private final Map<Integer, int[]> attributeIndex = new HashMap<>();
+  private int indexedLayers;
+  private Executor executor;
+  private int parallelThreshold;
+  private int chunks;
 
   public AbstractShapingNetwork(List<Layer> layers) {
     this.layers.addAll(layers);
@@ -21,12 +33,85 @@ public class AbstractShapingNetwork {
   public AbstractShapingNetwork() {}
 
   public void initializeLayers(List<ComposedLayer> temp, int input) {
+    initializeLayers(temp, input, false);
+  }
+
+  public void initializeLayers(List<ComposedLayer> temp, int input, boolean lazy) {
+    initializeLayers(temp, input, lazy, Precision.DOUBLE);
+  }
+
+  public void initializeLayers(List<ComposedLayer> temp, int input, boolean lazy, Precision precision) {
+    initializeLayers(temp, input, lazy, precision, null);
+  }
+
+  public void initializeLayers(List<ComposedLayer> temp, int input, boolean lazy, Precision precision, OffHeapArena arena) {
+    initializeLayers(temp, input, lazy, precision, arena, new SplittableRandom());
+  }
+
+  /**
+   * Creates a partition layer for each of the given composers
+   *
+   * @param temp The composers of the layers
+   * @param input The amount of input nodes
+   * @param lazy Whether the neurons materialize their shape vectors on demand
+   * @param precision The precision in which the neurons store their vectors
+   * @param arena The arena to store the vectors of the neurons in, or null to keep them on the heap
+   * @param random The random stream each layer splits its own stream from, in order
+   */
+  public void initializeLayers(List<ComposedLayer> temp, int input, boolean lazy, Precision precision, OffHeapArena arena, SplittableRandom random) {
     for (ComposedLayer composer : temp)
-      layers.add(new PartitionLayer(composer, input));
+      layers.add(new PartitionLayer(composer, input, lazy, precision, arena, random.split()));
+    reindex();
   }
 
   public void initializeLayers(List<Layer> layers) {
     this.layers.addAll(layers);
+    reindex();
+  }
+
+  /**
+   * Gets the positions of the layers of the given attribute,
+   * through an index which is rebuilt whenever layers have been added
+   *
+   * @param attribute The attribute to get the layers of
+   * @return Returns the positions of the layers of the attribute, which must not be modified
+   */
+  protected int[] indicesOf(int attribute) {
+    if (indexedLayers != layers.size())
+      reindex();
+
+    int[] indexed = attributeIndex.get(attribute);
+    return indexed != null ? indexed : NO_LAYERS;
+  }
+
+  private void reindex() {
+    Map<Integer, List<Integer>> grouped = new HashMap<>();
+    for (int i = 0; i < layers.size(); i++)
+      grouped.computeIfAbsent(layers.get(i).attribute(), k -> new ArrayList<>()).add(i);
+
+    attributeIndex.clear();
+    grouped.forEach((attribute, group) ->
+      attributeIndex.put(attribute, group.stream().mapToInt(Integer::intValue).toArray())
+    );
+    indexedLayers = layers.size();
+  }
+
+  /**
+   * Scores the layers of a single prediction in contiguous chunks on the given executor,
+   * once the network holds at least the given amount of layers. The calling thread scores the last chunk itself.
+   * Each layer is scored exactly as sequentially, so the predictions do not change.
+   *
+   * @param executor The executor to score the chunks on, or null to always score sequentially
+   * @param threshold The amount of layers from which predictions are scored in parallel
+   * @param chunks The amount of chunks to split the layers into
+   */
+  public void parallelPrediction(Executor executor, int threshold, int chunks) {
+    if (executor != null && (threshold <= 0 || chunks <= 0))
+      throw new IllegalArgumentException("Threshold and chunks must be positive");
+
+    this.executor = executor;
+    this.parallelThreshold = threshold;
+    this.chunks = chunks;
   }
 
   /**
@@ -35,16 +120,117 @@ public class AbstractShapingNetwork {
    * @param vector The input vector to predict the probabilities of
    * @return Returns an array of probabilities for each layer
    */
+  @Override
   public double[] predict(ContextVector vector) {
     double[] probabilities = new double[layers.size()];
     int space = layers.size();
-    for (int i = 0; i < space; i++) {
-      Layer layer = layers.get(i);
-      double score = layer.predict(vector);
-      probabilities[i] = score;
+    if (executor == null || space < parallelThreshold || chunks < 2) {
+      score(vector, probabilities, 0, space);
+      return probabilities;
     }
 
+    int numChunks = Math.min(chunks, space);
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[numChunks - 1];
+    for (int c = 0; c < numChunks - 1; c++) {
+      int from = (int) ((long) c * space / numChunks);
+      int to = (int) ((long) (c + 1) * space / numChunks);
+      futures[c] = CompletableFuture.runAsync(() -> score(vector, probabilities, from, to), executor);
+    }
+    score(vector, probabilities, (int) ((long) (numChunks - 1) * space / numChunks), space);
+    CompletableFuture.allOf(futures).join();
     return probabilities;
   }
 
+  /**
+   * Scores the given range of layers into the given array
+   *
+   * @param vector The input vector to score
+   * @param probabilities The array to store the score of each layer in
+   * @param from The first layer to score
+   * @param to The layer to stop scoring at, exclusive
+   */
+  protected void score(ContextVector vector, double[] probabilities, int from, int to) {
+    for (int i = from; i < to; i++)
+      probabilities[i] = layers.get(i).predict(vector);
+  }
+
+  /**
+   * Performs a prediction on each of the given input vectors.
+   * When every layer is a {@link PartitionLayer}, the network is scored through {@link #compiled()}
+   * with a single cache-blocked matrix product.
+   *
+   * @param vectors The input vectors to predict the probabilities of
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  public double[][] predict(ContextVector[] vectors) {
+    if (compilable())
+      return compiled().predict(vectors);
+
+    double[][] probabilities = new double[vectors.length][];
+    for (int b = 0; b < vectors.length; b++)
+      probabilities[b] = predict(vectors[b]);
+    return probabilities;
+  }
+
+  /**
+   * Performs a prediction on each row of the given row-major input matrix
+   *
+   * @param inputs The row-major input matrix
+   * @param rows The amount of input rows
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  @Override
+  public double[][] predict(double[] inputs, int rows) {
+    if (compilable())
+      return compiled().predict(inputs, rows);
+
+    return Predictor.super.predict(inputs, rows);
+  }
+
+  /**
+   * Performs a prediction on each row of the given view, reading array-backed rows in place
+   *
+   * @param matrix The rows to predict the probabilities of
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  @Override
+  public double[][] predict(RowMatrix matrix) {
+    if (compilable())
+      return compiled().predict(matrix);
+
+    return Predictor.super.predict(matrix);
+  }
+
+  private boolean compilable() {
+    if (layers.isEmpty())
+      return false;
+    for (Layer layer : layers)
+      if (!(layer instanceof PartitionLayer))
+        return false;
+    return true;
+  }
+
+  /**
+   * Gets a compiled network reflecting the current state of this network, which the batched predictions are scored with.
+   * Compiles the network on every call, which subclasses tracking their changed layers override to reuse a cached one.
+   *
+   * @return Returns the compiled network
+   */
+  protected CompiledNetwork compiled() {
+    return compile();
+  }
+
+  /**
+   * Compiles the current state of this network into an immutable snapshot for inference
+   *
+   * @return Returns the compiled network
+   * @throws IllegalStateException If the network has no layers, or a layer is not a {@link PartitionLayer}
+   */
+  public CompiledNetwork compile() {
+    if (layers.isEmpty())
+      throw new IllegalStateException("Network is not initialized");
+
+    return CompiledNetwork.of(layers);
+  }
+
 }
@@ -0,0 +1,332 @@
+package gg.clouke;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A memory-mapped dataset in the binary format written by {@link BinaryDatasetWriter}, for training on the same samples for many epochs.
+ * <p>
+ * The file is a 32 byte little-endian header, followed by the contiguous feature rows and then by an {@code int32} label per row:
+ * <pre>
+ *   0  int32   magic, the bytes "SNDS"
+ *   4  int32   version
+ *   8  int64   amount of rows
+ *  16  int32   dimension
+ *  20  int8    feature type, 0 for float64 and 1 for float32
+ *  21  int8    label type, 0 for int32
+ *  22  10 bytes reserved
+ * </pre>
+ * The file is mapped in segments of whole rows, so rows are read from the page cache of the operating system
+ * rather than the heap, and datasets larger than the heap only keep their recently used pages in memory.
+ * A dataset is safe to read from many threads, but no thread may read it while it is closed.
+ *
+ * @author Clouke
+ * @since 19.10.2026 00:55
+ * © shape-network - All Rights Reserved
+ */
+public final class BinaryDataset implements AutoCloseable {
+
+  /**
+   * The type in which the features are stored
+   */
+  public enum FeatureType {
+    FLOAT64(Double.BYTES),
+    FLOAT32(Float.BYTES);
+
+    private final int bytes;
+
+    FeatureType(int bytes) {
+      this.bytes = bytes;
+    }
+
+    /**
+     * Gets the amount of bytes of a single feature
+     *
+     * @return Returns the size of a feature in bytes
+     */
+    public int bytes() {
+      return bytes;
+    }
+  }
+
+  static final int MAGIC = 'S' | 'N' << 8 | 'D' << 16 | 'S' << 24;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+  static final byte LABEL_INT32 = 0;
+  static final int SEGMENT_BYTES = 1 << 30;
+
+  /**
+   * Opens and maps the given dataset file
+   *
+   * @param path The dataset file
+   * @return Returns the mapped dataset
+   * @throws IOException If the file could not be read
+   * @throws IllegalStateException If the file is not a dataset, or was written by a newer version
+   */
+  public static BinaryDataset open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining())
+        if (channel.read(header, header.position()) < 0)
+          throw new IllegalStateException("File is too short to be a dataset");
+
+      if (header.getInt(0) != MAGIC)
+        throw new IllegalStateException("File is not a dataset");
+      int version = header.getInt(4);
+      if (version < 1 || version > VERSION)
+        throw new IllegalStateException("Unsupported dataset version " + version);
+
+      long rows = header.getLong(8);
+      int dimension = header.getInt(16);
+      byte type = header.get(20);
+      if (rows < 0 || rows > Integer.MAX_VALUE || dimension <= 0)
+        throw new IllegalStateException("Dataset holds an invalid amount of rows or dimension");
+      if (type < 0 || type >= FeatureType.values().length || header.get(21) != LABEL_INT32)
+        throw new IllegalStateException("Dataset holds an unknown feature or label type");
+
+      FeatureType features = FeatureType.values()[type];
+      long rowBytes = (long) dimension * features.bytes;
+      if (rowBytes > SEGMENT_BYTES)
+        throw new IllegalStateException("Rows cannot exceed " + SEGMENT_BYTES + " bytes");
+      if (channel.size() < HEADER_BYTES + rows * (rowBytes + Integer.BYTES))
+        throw new IllegalStateException("Dataset is truncated");
+
+      return new BinaryDataset(channel, (int) rows, dimension, features);
+    }
+  }
+
+  private final int rows;
+  private final int dimension;
+  private final FeatureType features;
+  private final int rowsPerSegment;
+  private final MappedByteBuffer[] mappings;
+  private final DoubleBuffer[] doubles;
+  private final FloatBuffer[] floats;
+  private final IntBuffer[] labels;
+  private final AtomicIntegerArray viewed;
+  private final ThreadLocal<float[]> floatRows;
+  private volatile boolean closed;
+
+  private BinaryDataset(FileChannel channel, int rows, int dimension, FeatureType features) throws IOException {
+    this.rows = rows;
+    this.dimension = dimension;
+    this.features = features;
+
+    int rowBytes = dimension * features.bytes;
+    this.rowsPerSegment = SEGMENT_BYTES / rowBytes;
+    int featureSegments = segments(rows, rowsPerSegment);
+    int labelSegments = segments(rows, SEGMENT_BYTES / Integer.BYTES);
+    this.mappings = new MappedByteBuffer[featureSegments + labelSegments];
+    this.doubles = features == FeatureType.FLOAT64 ? new DoubleBuffer[featureSegments] : null;
+    this.floats = features == FeatureType.FLOAT32 ? new FloatBuffer[featureSegments] : null;
+    this.labels = new IntBuffer[labelSegments];
+    this.viewed = new AtomicIntegerArray(featureSegments);
+    this.floatRows = features == FeatureType.FLOAT32 ? ThreadLocal.withInitial(() -> new float[dimension]) : null;
+
+    for (int s = 0; s < featureSegments; s++) {
+      int count = Math.min(rowsPerSegment, rows - s * rowsPerSegment);
+      ByteBuffer mapping = map(channel, HEADER_BYTES + (long) s * rowsPerSegment * rowBytes, (long) count * rowBytes, s);
+      if (doubles != null)
+        doubles[s] = mapping.asDoubleBuffer();
+      else
+        floats[s] = mapping.asFloatBuffer();
+    }
+
+    long labelStart = HEADER_BYTES + (long) rows * rowBytes;
+    int labelsPerSegment = SEGMENT_BYTES / Integer.BYTES;
+    for (int s = 0; s < labelSegments; s++) {
+      int count = Math.min(labelsPerSegment, rows - s * labelsPerSegment);
+      labels[s] = map(channel, labelStart + (long) s * SEGMENT_BYTES, (long) count * Integer.BYTES, featureSegments + s).asIntBuffer();
+    }
+  }
+
+  private static int segments(int rows, int rowsPerSegment) {
+    return (int) ((rows + (long) rowsPerSegment - 1) / rowsPerSegment);
+  }
+
+  private ByteBuffer map(FileChannel channel, long position, long size, int index) throws IOException {
+    MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    mappings[index] = mapping;
+    return mapping.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Loads the features of the given row into the given vector, reusing its backing array.
+   * The row is copied in bulk, float32 rows through a buffer of the current thread which is widened afterwards.
+   *
+   * @param row The index of the row
+   * @param destination The dense vector to overwrite with the features
+   * @return Returns the destination vector
+   */
+  public ContextVector row(int row, ContextVector destination) {
+    checkRow(row);
+    int segment = row / rowsPerSegment;
+    int offset = (row - segment * rowsPerSegment) * dimension;
+    double[] values = destination.resize(dimension).values();
+    if (doubles != null) {
+      DoubleBuffer view = doubles[segment].duplicate();
+      ((Buffer) view).position(offset); // Buffer keeps the call linkable on Java 8
+      view.get(values, 0, dimension);
+    } else {
+      float[] narrow = floatRows.get();
+      FloatBuffer view = floats[segment].duplicate();
+      ((Buffer) view).position(offset);
+      view.get(narrow, 0, dimension);
+      for (int i = 0; i < dimension; i++)
+        values[i] = narrow[i];
+    }
+    return destination;
+  }
+
+  /**
+   * Gets a view of the given consecutive rows. Float64 rows within one mapped segment of 1 GiB are viewed in place,
+   * other rows are copied into a new array. A segment viewed in place stays mapped after {@link #close()}
+   * until the garbage collector frees its last view.
+   *
+   * @param from The index of the first row
+   * @param count The amount of rows
+   * @return Returns the view of the rows
+   */
+  public RowMatrix rows(int from, int count) {
+    if (from < 0 || count < 0 || from + (long) count > rows)
+      throw new IndexOutOfBoundsException("Rows " + from + " to " + (from + (long) count) + " are out of bounds for " + rows + " rows");
+    ensureOpen();
+
+    int segment = from / rowsPerSegment;
+    if (doubles != null && count > 0 && (from + count - 1) / rowsPerSegment == segment) {
+      viewed.set(segment, 1);
+      DoubleBuffer view = doubles[segment].duplicate();
+      ((Buffer) view).position((from - segment * rowsPerSegment) * dimension);
+      return new RowMatrix(view, dimension, dimension, count);
+    }
+
+    if ((long) count * dimension > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Rows " + from + " to " + (from + (long) count) + " cannot be copied into a single array");
+
+    double[] values = new double[count * dimension];
+    ContextVector row = ContextVector.withCapacity(dimension);
+    for (int b = 0; b < count; b++)
+      row(from + b, row).copyInto(values, b * dimension);
+    return new RowMatrix(values, 0, dimension, dimension, count);
+  }
+
+  /**
+   * Gets the label of the given row
+   *
+   * @param row The index of the row
+   * @return Returns the label of the row
+   */
+  public int label(int row) {
+    checkRow(row);
+    int perSegment = SEGMENT_BYTES / Integer.BYTES;
+    return labels[row / perSegment].get(row % perSegment);
+  }
+
+  /**
+   * Creates a random order of all rows for an epoch
+   *
+   * @param random The random stream to shuffle with
+   * @return Returns a permutation of the row indices
+   */
+  public int[] shuffle(SplittableRandom random) {
+    int[] order = new int[rows];
+    for (int i = 0; i < rows; i++)
+      order[i] = i;
+    for (int i = rows - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+    return order;
+  }
+
+  /**
+   * Feeds every row to the given network in file order, loading the rows into a single reused vector
+   *
+   * @param network The network to feed
+   */
+  public void feed(ShapingNetwork network) {
+    ContextVector vector = ContextVector.withCapacity(dimension);
+    for (int row = 0; row < rows; row++)
+      network.feed(row(row, vector), label(row));
+  }
+
+  /**
+   * Feeds every row to the given network in a new random order, loading the rows into a single reused vector
+   *
+   * @param network The network to feed
+   * @param random The random stream to shuffle the epoch with
+   */
+  public void feed(ShapingNetwork network, SplittableRandom random) {
+    ContextVector vector = ContextVector.withCapacity(dimension);
+    for (int row : shuffle(random))
+      network.feed(row(row, vector), label(row));
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= rows)
+      throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for " + rows + " rows");
+    ensureOpen();
+  }
+
+  private void ensureOpen() {
+    if (closed)
+      throw new IllegalStateException("Dataset is closed");
+  }
+
+  /**
+   * Gets the amount of rows of this dataset
+   *
+   * @return Returns the amount of rows
+   */
+  public int rows() {
+    return rows;
+  }
+
+  /**
+   * Gets the amount of features of each row
+   *
+   * @return Returns the dimension of the rows
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets the type in which the features are stored
+   *
+   * @return Returns the feature type
+   */
+  public FeatureType featureType() {
+    return features;
+  }
+
+  /**
+   * Unmaps the file, after which this dataset can no longer be used, so no other thread may use the dataset while it is closed.
+   * Segments still referenced by views of {@link #rows(int, int)} are left to the garbage collector instead,
+   * so those views remain readable.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed)
+      return;
+
+    closed = true;
+    for (int s = 0; s < mappings.length; s++)
+      if (mappings[s] != null && (s >= viewed.length() || viewed.get(s) == 0))
+        OffHeapArena.Release.release(mappings[s]);
+  }
+
+}
@@ -0,0 +1,168 @@
+package gg.clouke;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Writes samples into the binary format read by {@link BinaryDataset}.
+ * <p>
+ * Feature rows are streamed to the file as they are written, whereas the labels are kept on the heap
+ * (4 bytes per row) until the writer is closed, which appends them and completes the header.
+ * A file is only a valid dataset once its writer is closed.
+ *
+ * @author Clouke
+ * @since 19.10.2026 00:55
+ * © shape-network - All Rights Reserved
+ */
+public final class BinaryDatasetWriter implements AutoCloseable {
+
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private final FileChannel channel;
+  private final int dimension;
+  private final BinaryDataset.FeatureType features;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+  private int[] labels = new int[1024];
+  private int rows;
+  private boolean closed;
+
+  /**
+   * Creates or truncates the given file
+   *
+   * @param path The file to write
+   * @param dimension The amount of features of each row
+   * @param features The type to store the features in
+   * @throws IOException If the file could not be created
+   */
+  public BinaryDatasetWriter(Path path, int dimension, BinaryDataset.FeatureType features) throws IOException {
+    if (dimension <= 0)
+      throw new IllegalArgumentException("Dimension must be positive");
+    if ((long) dimension * features.bytes() > BinaryDataset.SEGMENT_BYTES)
+      throw new IllegalArgumentException("Rows cannot exceed " + BinaryDataset.SEGMENT_BYTES + " bytes");
+
+    this.dimension = dimension;
+    this.features = Objects.requireNonNull(features, "Feature type cannot be null");
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    channel.position(BinaryDataset.HEADER_BYTES);
+  }
+
+  /**
+   * Appends a row
+   *
+   * @param vector The features of the row
+   * @param label The label of the row
+   * @throws IOException If the row could not be written
+   */
+  public void write(ContextVector vector, int label) throws IOException {
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Dimension of the vector must be " + dimension);
+
+    write(vector.values(), 0, label);
+  }
+
+  /**
+   * Appends every row of the given view
+   *
+   * @param matrix The features of the rows
+   * @param labels The label of each row
+   * @throws IOException If the rows could not be written
+   */
+  public void write(RowMatrix matrix, int[] labels) throws IOException {
+    if (matrix.dimension() != dimension)
+      throw new IllegalArgumentException("Dimension of the rows must be " + dimension);
+    if (labels.length < matrix.rows())
+      throw new IllegalArgumentException("Each row must have a label");
+
+    if (matrix.array() != null) {
+      for (int b = 0; b < matrix.rows(); b++)
+        write(matrix.array(), matrix.offset() + b * matrix.stride(), labels[b]);
+      return;
+    }
+
+    ContextVector row = ContextVector.withCapacity(dimension);
+    for (int b = 0; b < matrix.rows(); b++)
+      write(matrix.row(b, row).values(), 0, labels[b]);
+  }
+
+  private void write(double[] values, int offset, int label) throws IOException {
+    if (closed)
+      throw new IllegalStateException("Writer is closed");
+    if (rows == Integer.MAX_VALUE)
+      throw new IllegalStateException("Dataset cannot hold more rows");
+
+    for (int i = 0; i < dimension; i++) {
+      if (buffer.remaining() < Double.BYTES)
+        flush();
+      if (features == BinaryDataset.FeatureType.FLOAT64)
+        buffer.putDouble(values[offset + i]);
+      else
+        buffer.putFloat((float) values[offset + i]);
+    }
+
+    if (rows == labels.length)
+      labels = Arrays.copyOf(labels, (int) Math.min(Integer.MAX_VALUE, rows * 2L));
+    labels[rows++] = label;
+  }
+
+  private void flush() throws IOException {
+    ((Buffer) buffer).flip();
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+
+  /**
+   * Gets the amount of rows written so far
+   *
+   * @return Returns the amount of rows
+   */
+  public int rows() {
+    return rows;
+  }
+
+  /**
+   * Appends the labels, completes the header and closes the file
+   *
+   * @throws IOException If the file could not be completed
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed)
+      return;
+
+    closed = true;
+    try {
+      for (int i = 0; i < rows; i++) {
+        if (buffer.remaining() < Integer.BYTES)
+          flush();
+        buffer.putInt(labels[i]);
+      }
+      flush();
+
+      buffer.putInt(BinaryDataset.MAGIC)
+        .putInt(BinaryDataset.VERSION)
+        .putLong(rows)
+        .putInt(dimension)
+        .put((byte) features.ordinal())
+        .put(BinaryDataset.LABEL_INT32);
+      while (buffer.position() < BinaryDataset.HEADER_BYTES)
+        buffer.put((byte) 0);
+      ((Buffer) buffer).flip();
+      long position = 0;
+      while (buffer.hasRemaining())
+        position += channel.write(buffer, position);
+      buffer.clear();
+      channel.force(false);
+    } finally {
+      channel.close();
+    }
+  }
+
+}
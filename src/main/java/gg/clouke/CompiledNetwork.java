@@ -0,0 +1,379 @@
+package gg.clouke;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable inference snapshot of a trained network.
+ * <p>
+ * Every neuron's shape vector is L2-normalized and packed into a contiguous row-major block per layer,
+ * where the rows of all layers together form the weight matrix of the network through their row ranges.
+ * Snapshots updated by {@link ShapingNetwork#publish()} share the blocks of unchanged layers with their predecessor.
+ * A prediction is then a single matrix-vector product followed by a per-layer mean,
+ * with the norm of the input only computed once.
+ * <p>
+ * The probabilities equal those of {@link AbstractShapingNetwork#predict(ContextVector)}
+ * up to floating point rounding, and a compiled network is safe to share across threads.
+ *
+ * @author Clouke
+ * @since 18.10.2026 12:20
+ * © shape-network - All Rights Reserved
+ */
+public final class CompiledNetwork implements Predictor {
+
+  private static final int BATCH_TILE = 16;
+  private static final int ROW_TILE = 64;
+  private static final int DIMENSION_TILE = 256;
+  private static final int COPY_BLOCK = 1 << 16;
+
+  private final int dimension;
+  private final int[] attributes;
+  private final int[] offsets;
+  private final int[] rowLayers;
+  private final double[][] blocks;
+
+  CompiledNetwork(int dimension, int[] attributes, int[] offsets, double[][] blocks) {
+    this.dimension = dimension;
+    this.attributes = attributes;
+    this.offsets = offsets;
+    this.blocks = blocks;
+    this.rowLayers = new int[offsets[attributes.length]];
+    for (int layer = 0; layer < attributes.length; layer++)
+      for (int row = offsets[layer]; row < offsets[layer + 1]; row++)
+        rowLayers[row] = layer;
+  }
+
+  /**
+   * Compiles the given layers into a snapshot
+   *
+   * @param layers The layers to compile
+   * @return Returns the compiled network
+   */
+  static CompiledNetwork of(List<Layer> layers) {
+    return of(layers, (layer, compilation) -> compilation.run());
+  }
+
+  /**
+   * Compiles the given layers into a snapshot, reading the neurons of each layer within the given guard
+   *
+   * @param layers The layers to compile
+   * @param guard Runs the compilation of each layer, such as under its lock
+   * @return Returns the compiled network
+   */
+  static CompiledNetwork of(List<Layer> layers, LayerGuard guard) {
+    int[] attributes = new int[layers.size()];
+    int[] offsets = new int[layers.size() + 1];
+    for (int i = 0; i < layers.size(); i++) {
+      Layer layer = layers.get(i);
+      if (!(layer instanceof PartitionLayer))
+        throw new IllegalStateException("Only partition layers can be compiled");
+
+      attributes[i] = layer.attribute();
+      offsets[i + 1] = offsets[i] + ((PartitionLayer) layer).neurons().size();
+    }
+
+    double[][] blocks = new double[layers.size()][];
+    int[] dimension = {-1}; // taken from the first neuron, since reading a lazy shape vector materializes it
+    for (int i = 0; i < layers.size(); i++) {
+      int index = i;
+      guard.run(index, () -> {
+        PartitionLayer layer = (PartitionLayer) layers.get(index);
+        if (dimension[0] == -1 && !layer.neurons().isEmpty())
+          dimension[0] = layer.neurons().get(0).shapeVector().dimension();
+        blocks[index] = normalize(layer, dimension[0]);
+      });
+    }
+
+    return new CompiledNetwork(dimension[0], attributes, offsets, blocks);
+  }
+
+  /**
+   * Writes the normalized shape vectors of the given layer into a new row-major block
+   *
+   * @param layer The layer to normalize
+   * @param dimension The dimension of each row
+   * @return Returns the block of the layer
+   */
+  static double[] normalize(PartitionLayer layer, int dimension) {
+    List<Neuron> neurons = layer.neurons();
+    double[] weights = new double[Math.multiplyExact(neurons.size(), dimension)];
+    int row = 0;
+    for (Neuron neuron : neurons) {
+      ContextVector shape = neuron.shapeVector();
+      if (shape.dimension() != dimension)
+        throw new IllegalStateException("Dimension of all neurons must be equal");
+
+      double magnitude = shape.magnitude();
+      int offset = row++ * dimension;
+      if (magnitude == 0) {
+        Arrays.fill(weights, offset, offset + dimension, 0.0); // a zero row scores 0, just as cosine does
+        continue;
+      }
+
+      double[] values = shape.values();
+      for (int i = 0; i < dimension; i++)
+        weights[offset + i] = values[i] / magnitude;
+    }
+    return weights;
+  }
+
+  /**
+   * Creates a copy of this network where only the given layers are compiled again from their current state,
+   * leaving this network untouched. The copy shares the blocks of all other layers with this network,
+   * so an update only allocates the blocks of the changed layers.
+   *
+   * @param layers The layers this network was compiled from
+   * @param changed The indices of the layers which changed since
+   * @param guard Runs the compilation of each changed layer, such as under its lock
+   * @return Returns the updated copy
+   */
+  CompiledNetwork update(List<Layer> layers, int[] changed, LayerGuard guard) {
+    double[][] copy = blocks.clone();
+    for (int layer : changed) {
+      if (offsets[layer + 1] - offsets[layer] != ((PartitionLayer) layers.get(layer)).neurons().size())
+        throw new IllegalStateException("Layers changed their amount of neurons since they were compiled");
+      guard.run(layer, () -> copy[layer] = normalize((PartitionLayer) layers.get(layer), dimension));
+    }
+    return new CompiledNetwork(dimension, attributes, offsets, copy);
+  }
+
+  /**
+   * Runs the compilation of a single layer
+   */
+  interface LayerGuard {
+
+    void run(int layer, Runnable compilation);
+
+  }
+
+  @Override
+  public double[] predict(ContextVector vector) {
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Dimension of input must be " + dimension);
+
+    double[] probabilities = new double[attributes.length];
+    double magnitude = vector.magnitude();
+    if (magnitude == 0)
+      return probabilities;
+
+    if (vector.sparse())
+      return predict((SparseContextVector) vector, probabilities, magnitude);
+
+    double[] x = vector.values();
+    VectorKernels kernels = VectorKernels.active();
+    for (int layer = 0; layer < attributes.length; layer++) {
+      double[] block = blocks[layer];
+      int count = offsets[layer + 1] - offsets[layer];
+      double sum = 0.0;
+      for (int row = 0; row < count; row++)
+        sum += kernels.dot(block, row * dimension, x, 0, dimension);
+      probabilities[layer] = sum / magnitude / count;
+    }
+
+    return probabilities;
+  }
+
+  /**
+   * Scores a sparse input in time proportional to its non-zero values per neuron
+   */
+  private double[] predict(SparseContextVector vector, double[] probabilities, double magnitude) {
+    int[] indices = vector.indices();
+    double[] data = vector.data();
+    int nonZeros = vector.nonZeros();
+    for (int layer = 0; layer < attributes.length; layer++) {
+      double[] block = blocks[layer];
+      int count = offsets[layer + 1] - offsets[layer];
+      double sum = 0.0;
+      for (int row = 0; row < count; row++) {
+        int offset = row * dimension;
+        for (int k = 0; k < nonZeros; k++)
+          sum += block[offset + indices[k]] * data[k];
+      }
+      probabilities[layer] = sum / magnitude / count;
+    }
+
+    return probabilities;
+  }
+
+  /**
+   * Performs a prediction on each of the given input vectors
+   *
+   * @param vectors The input vectors to predict the probabilities of
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  public double[][] predict(ContextVector[] vectors) {
+    double[] inputs = new double[vectors.length * dimension];
+    for (int b = 0; b < vectors.length; b++) {
+      if (vectors[b].dimension() != dimension)
+        throw new IllegalArgumentException("Dimension of input must be " + dimension);
+      vectors[b].copyInto(inputs, b * dimension);
+    }
+
+    return predict(inputs, vectors.length);
+  }
+
+  /**
+   * Performs a prediction on each row of the given row-major input matrix.
+   * <p>
+   * The cosine scores are computed with a matrix-matrix product which is tiled over
+   * inputs, neurons and dimensions, so each tile of the weight matrix is streamed
+   * through the cache once per tile of inputs rather than once per input.
+   * On the scalar {@link VectorKernels}, the probabilities are bit-for-bit equal
+   * to those of {@link #predict(ContextVector)}.
+   *
+   * @param inputs The row-major input matrix, holding {@code rows * dimension()} values
+   * @param rows The amount of input rows
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  @Override
+  public double[][] predict(double[] inputs, int rows) {
+    if (rows < 0 || inputs.length < (long) rows * dimension)
+      throw new IllegalArgumentException("Input must hold " + rows + " rows of dimension " + dimension);
+
+    return predict(inputs, 0, dimension, rows);
+  }
+
+  /**
+   * Performs a prediction on each row of the given view with the tiled scoring pass of {@link #predict(double[], int)}.
+   * Array-backed rows are read in place, rows of a direct buffer are copied in blocks.
+   *
+   * @param matrix The rows to predict the probabilities of
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  @Override
+  public double[][] predict(RowMatrix matrix) {
+    if (matrix.dimension() != dimension)
+      throw new IllegalArgumentException("Dimension of input must be " + dimension);
+
+    if (matrix.array() != null)
+      return predict(matrix.array(), matrix.offset(), matrix.stride(), matrix.rows());
+
+    double[][] probabilities = new double[matrix.rows()][];
+    int block = Math.max(BATCH_TILE, COPY_BLOCK / Math.max(1, dimension));
+    double[] rows = new double[Math.min(block, matrix.rows()) * dimension];
+    for (int b0 = 0; b0 < matrix.rows(); b0 += block) {
+      int count = Math.min(block, matrix.rows() - b0);
+      matrix.copyRows(b0, count, rows);
+      System.arraycopy(predict(rows, 0, dimension, count), 0, probabilities, b0, count);
+    }
+    return probabilities;
+  }
+
+  private double[][] predict(double[] inputs, int offset, int stride, int rows) {
+    int layers = attributes.length;
+    int neurons = neurons();
+    int dim = dimension;
+    double[][] probabilities = new double[rows][layers];
+    double[] magnitudes = new double[rows];
+    VectorKernels kernels = VectorKernels.active();
+    for (int b = 0; b < rows; b++)
+      magnitudes[b] = Math.sqrt(kernels.sumOfSquares(inputs, offset + b * stride, dim));
+
+    double[] dots = new double[BATCH_TILE * ROW_TILE];
+    for (int b0 = 0; b0 < rows; b0 += BATCH_TILE) {
+      int b1 = Math.min(b0 + BATCH_TILE, rows);
+      for (int r0 = 0; r0 < neurons; r0 += ROW_TILE) {
+        int r1 = Math.min(r0 + ROW_TILE, neurons);
+        Arrays.fill(dots, 0.0);
+
+        for (int d0 = 0; d0 < dim; d0 += DIMENSION_TILE) {
+          int d1 = Math.min(d0 + DIMENSION_TILE, dim);
+          for (int r = r0; r < r1; r++)
+            kernels.accumulateDots(
+              blocks[rowLayers[r]], (r - offsets[rowLayers[r]]) * dim + d0,
+              inputs, offset + b0 * stride + d0, stride,
+              b1 - b0, d1 - d0,
+              dots, r - r0, ROW_TILE
+            );
+        }
+
+        for (int b = b0; b < b1; b++) {
+          double[] sums = probabilities[b];
+          int tile = (b - b0) * ROW_TILE;
+          for (int r = r0; r < r1; r++)
+            sums[rowLayers[r]] += dots[tile + r - r0];
+        }
+      }
+    }
+
+    for (int b = 0; b < rows; b++) {
+      double[] sums = probabilities[b];
+      double magnitude = magnitudes[b];
+      for (int layer = 0; layer < layers; layer++)
+        sums[layer] = magnitude == 0
+          ? 0.0
+          : sums[layer] / magnitude / (offsets[layer + 1] - offsets[layer]);
+    }
+
+    return probabilities;
+  }
+
+  /**
+   * Gets the input dimension of this network
+   *
+   * @return Returns the input dimension of this network
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets the amount of layers in this network
+   *
+   * @return Returns the amount of layers in this network
+   */
+  public int layers() {
+    return attributes.length;
+  }
+
+  /**
+   * Gets the amount of neurons, and so rows of the weight matrix, in this network
+   *
+   * @return Returns the amount of neurons in this network
+   */
+  public int neurons() {
+    return offsets[attributes.length];
+  }
+
+  /**
+   * Gets the first row of the given layer, where {@code offset(layers())} is the amount of rows
+   *
+   * @param layer The index of the layer
+   * @return Returns the first row of the given layer
+   */
+  public int offset(int layer) {
+    return offsets[layer];
+  }
+
+  /**
+   * Copies the normalized weights of the given row into the given array
+   *
+   * @param row The row to copy
+   * @param destination The array to copy the weights into
+   * @param offset The offset within the array to start copying at
+   */
+  public void row(int row, double[] destination, int offset) {
+    int layer = rowLayers[row];
+    System.arraycopy(blocks[layer], (row - offsets[layer]) * dimension, destination, offset, dimension);
+  }
+
+  /**
+   * Quantizes this network into an int8 inference model
+   *
+   * @return Returns the quantized network
+   */
+  public QuantizedNetwork quantize() {
+    return QuantizedNetwork.of(this);
+  }
+
+  /**
+   * Gets the attribute target of the given layer
+   *
+   * @param layer The index of the layer
+   * @return Returns the attribute target of the given layer
+   */
+  public int attribute(int layer) {
+    return attributes[layer];
+  }
+
+}
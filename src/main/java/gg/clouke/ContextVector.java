@@ -1,11 +1,15 @@
 package gg.clouke;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * A vector class, used for performing operations on vectors
+ * <p>
+ * The values are stored in a primitive array which grows on demand,
+ * so none of the operations box or unbox its components.
  *
  * @author Clouke
  * @since 03.01.2024 20:06
@@ -30,9 +34,24 @@ public class ContextVector {
    * @return Returns a new vector instance
    */
   public static ContextVector fill(int size, double value) {
-    ContextVector vector = newVector();
-    for (int i = 0; i < size; i++)
-      vector.addValueToVector(value);
+    ContextVector vector = withCapacity(size);
+    Arrays.fill(vector.vector, 0, size, value);
+    vector.size = size;
+    return vector;
+  }
+
+  /**
+   * Creates a new empty vector instance with a preallocated capacity
+   *
+   * @param capacity The amount of values the vector can hold before growing
+   * @return Returns a new vector instance
+   */
+  public static ContextVector withCapacity(int capacity) {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Capacity cannot be negative");
+
+    ContextVector vector = new ContextVector();
+    vector.vector = capacity == 0 ? EMPTY : new double[capacity];
     return vector;
   }
 
@@ -49,10 +68,15 @@ public class ContextVector {
     return dimensions;
   }
 
-  private final List<Double> vector = new ArrayList<>();
+  private static final double[] EMPTY = new double[0];
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private double[] vector;
+  private int size;
 
   public ContextVector(double... values) {
-    for (double value : values) vector.add(value);
+    this.vector = values.length == 0 ? EMPTY : values.clone();
+    this.size = values.length;
   }
 
   /**
@@ -62,7 +86,8 @@ public class ContextVector {
    * @return Returns the value at the given index
    */
   public double get(int index) {
-    return vector.get(index);
+    checkIndex(index);
+    return vector[index];
   }
 
   /**
@@ -82,7 +107,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector addValueToVector(double value) {
-    vector.add(value);
+    ensureCapacity(size + 1);
+    vector[size++] = value;
     return this;
   }
 
@@ -93,8 +119,9 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector addValuesToVector(double... values) {
-    for (double value : values)
-      vector.add(value);
+    ensureCapacity(size + values.length);
+    System.arraycopy(values, 0, vector, size, values.length);
+    size += values.length;
     return this;
   }
 
@@ -106,10 +133,10 @@ public class ContextVector {
    * @return Returns a new vector instance of the cut vector
    */
   public ContextVector cut(int from, int to) {
-    ContextVector context = new ContextVector();
-    for (int i = from; i < to; i++)
-      context.addValueToVector(vector.get(i));
-    return context;
+    if (from < 0 || to > size || from > to)
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of bounds for dimension " + size);
+
+    return new ContextVector(Arrays.copyOfRange(vector, from, to));
   }
 
   /**
@@ -130,7 +157,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector modify(int index, double value) {
-    vector.set(index, value);
+    checkIndex(index);
+    vector[index] = value;
     return this;
   }
 
@@ -142,7 +170,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector multiply(int index, double value) {
-    vector.set(index, vector.get(index) * value);
+    checkIndex(index);
+    vector[index] *= value;
     return this;
   }
 
@@ -154,7 +183,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector divide(int index, double value) {
-    vector.set(index, vector.get(index) / value);
+    checkIndex(index);
+    vector[index] /= value;
     return this;
   }
 
@@ -166,7 +196,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector add(int index, double value) {
-    vector.set(index, vector.get(index) + value);
+    checkIndex(index);
+    vector[index] += value;
     return this;
   }
 
@@ -178,7 +209,8 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector subtract(int index, double value) {
-    vector.set(index, vector.get(index) - value);
+    checkIndex(index);
+    vector[index] -= value;
     return this;
   }
 
@@ -192,8 +224,10 @@ public class ContextVector {
     if (context.dimension() != dimension())
       throw new IllegalStateException("Dimension of node x and y must be equal");
 
-    for (int i = 0; i < context.dimension(); i++)
-      add(i, context.get(i));
+    if (context instanceof SparseContextVector)
+      ((SparseContextVector) context).scatterAdd(vector);
+    else
+      VectorKernels.active().add(vector, context.vector, size);
     return this;
   }
 
@@ -204,12 +238,13 @@ public class ContextVector {
    * @return Returns this instance for chaining
    */
   public ContextVector agglutinate(ContextVector context) {
-    for (int index = 0; index < context.dimension(); index++) {
-      double x = get(index);
-      double y = context.get(index);
-      double z = (x + y) / 2;
-      modify(index, z);
-    }
+    if (context.dimension() > dimension())
+      throw new IllegalStateException("Dimension of node y cannot exceed node x");
+
+    if (context instanceof SparseContextVector)
+      ((SparseContextVector) context).averageInto(vector);
+    else
+      VectorKernels.active().average(vector, context.vector, context.size);
     return this;
   }
 
@@ -220,32 +255,123 @@ public class ContextVector {
    * @return Returns the cosine similarity of the given vector
    */
   public double cosine(ContextVector y) {
-    double dotProduct = 0.0;
-    double normX = 0.0;
-    double normY = 0.0;
+    if (y.dimension() < dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
 
-    for (int i = 0; i < dimension(); i++) {
-      dotProduct += get(i) * y.get(i);
-      normX += Math.pow(get(i), 2);
-      normY += Math.pow(y.get(i), 2);
+    if (y instanceof SparseContextVector)
+      return ((SparseContextVector) y).cosine(vector, size);
+    return VectorKernels.active().cosine(vector, y.vector, size);
+  }
+
+  /**
+   * Gets the size of the vector
+   *
+   * @return Returns the size of the vector
+   */
+  public int dimension() {
+    return size;
+  }
+
+  /**
+   * Gets the backing array of this vector without copying it.
+   * Only the first {@link #dimension()} values are part of the vector,
+   * and the array may be replaced once the vector grows.
+   *
+   * @return Returns the backing array of this vector
+   */
+  public double[] values() {
+    return vector;
+  }
+
+  /**
+   * Performs the dot product on the given vector
+   *
+   * @param y The vector to perform the dot product on
+   * @return Returns the dot product of this vector and the given vector
+   */
+  public double dot(ContextVector y) {
+    if (y.dimension() < dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
+
+    if (y instanceof SparseContextVector)
+      return ((SparseContextVector) y).dot(vector, size);
+    return VectorKernels.active().dot(vector, 0, y.vector, 0, size);
+  }
+
+  /**
+   * Gets the euclidean length (L2 norm) of this vector
+   *
+   * @return Returns the euclidean length of this vector
+   */
+  public double magnitude() {
+    return Math.sqrt(VectorKernels.active().sumOfSquares(vector, 0, size));
+  }
+
+  /**
+   * Copies the values of the given vector into this vector,
+   * reusing the backing array whenever it is large enough
+   *
+   * @param context The vector to copy the values of
+   * @return Returns this instance for chaining
+   */
+  public ContextVector assign(ContextVector context) {
+    if (context instanceof SparseContextVector) {
+      resize(0).resize(context.dimension());
+      context.copyInto(vector, 0);
+      return this;
     }
 
-    double magnitudeX = Math.sqrt(normX);
-    double magnitudeY = Math.sqrt(normY);
+    ensureCapacity(context.size);
+    System.arraycopy(context.vector, 0, vector, 0, context.size);
+    size = context.size;
+    return this;
+  }
 
-    if (magnitudeX == 0 || magnitudeY == 0)
-      return 0.0; // division by zero
+  /**
+   * Copies a range of the given array into this vector,
+   * reusing the backing array whenever it is large enough
+   *
+   * @param values The array to copy the values of
+   * @param offset The offset of the first value within the array
+   * @param length The amount of values to copy
+   * @return Returns this instance for chaining
+   */
+  public ContextVector assign(double[] values, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > values.length)
+      throw new IndexOutOfBoundsException("Range " + offset + " to " + (offset + length) + " is out of bounds for length " + values.length);
 
-    return dotProduct / (magnitudeX * magnitudeY);
+    ensureCapacity(length);
+    System.arraycopy(values, offset, vector, 0, length);
+    size = length;
+    return this;
   }
 
   /**
-   * Gets the size of the vector
+   * Resizes this vector to the given dimension, reusing the backing array
+   * whenever it is large enough. Values past the previous dimension are zeroed.
    *
-   * @return Returns the size of the vector
+   * @param dimension The dimension to resize this vector to
+   * @return Returns this instance for chaining
    */
-  public int dimension() {
-    return vector.size();
+  public ContextVector resize(int dimension) {
+    if (dimension < 0)
+      throw new IllegalArgumentException("Dimension cannot be negative");
+
+    ensureCapacity(dimension);
+    if (dimension > size)
+      Arrays.fill(vector, size, dimension, 0.0);
+    size = dimension;
+    return this;
+  }
+
+  /**
+   * Copies the values of this vector into the given array
+   *
+   * @param destination The array to copy the values into
+   * @param offset The offset within the array to start copying at
+   */
+  public void copyInto(double[] destination, int offset) {
+    System.arraycopy(vector, 0, destination, offset, size);
   }
 
   /**
@@ -254,11 +380,7 @@ public class ContextVector {
    * @return Returns the transformed vector
    */
   public double[] transform() {
-    int dim = dimension();
-    double[] transformed = new double[dim];
-    for (int i = 0; i < vector.size(); i++)
-      transformed[i] = vector.get(i);
-    return transformed;
+    return Arrays.copyOf(vector, size);
   }
 
   /**
@@ -272,7 +394,7 @@ public class ContextVector {
     for (int i = 0; i < features.size(); i++) {
       if (i >= dimension()) break;
       double feature = features.get(i);
-      double x = vector.get(i);
+      double x = get(i);
       double normalizedFeature = (feature - x) / x;
       normalized.add(normalizedFeature);
     }
@@ -282,7 +404,7 @@ public class ContextVector {
   @Override
   public String toString() {
     return "ContextVector{" +
-      "vector=" + vector +
+      "vector=" + Arrays.toString(transform()) +
       '}';
   }
 
@@ -296,16 +418,40 @@ public class ContextVector {
   }
 
   public ContextVector copy() {
-    double[] values = transform();
-    return ContextVector.newVector()
-      .addValuesToVector(values);
+    return new ContextVector(transform());
+  }
+
+  /**
+   * Gets whether this vector only stores its non-zero values
+   *
+   * @return Returns whether this vector is sparse
+   */
+  public boolean sparse() {
+    return false;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= vector.length)
+      return;
+
+    int grown = vector.length + (vector.length >> 1);
+    vector = Arrays.copyOf(vector, Math.max(Math.max(grown, DEFAULT_CAPACITY), capacity));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for dimension " + size);
   }
 
   @Override
   public int hashCode() {
     int prime = 31;
+    int hash = 1;
+    for (int i = 0; i < dimension(); i++)
+      hash = prime * hash + Double.hashCode(get(i));
+
     int result = 1;
-    result = prime * result + vector.hashCode();
+    result = prime * result + hash;
     result = prime * result + dimension();
     return result;
   }
@@ -315,7 +461,12 @@ public class ContextVector {
     if (this == obj) return true;
     if (!(obj instanceof ContextVector)) return false;
     ContextVector other = (ContextVector) obj;
-    return other.dimension() == dimension() && hashCode() == other.hashCode();
+    if (other.dimension() != dimension()) return false;
+    for (int i = 0; i < dimension(); i++) {
+      if (Double.doubleToLongBits(get(i)) != Double.doubleToLongBits(other.get(i)))
+        return false;
+    }
+    return true;
   }
 
 }
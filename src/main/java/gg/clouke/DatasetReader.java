@@ -0,0 +1,341 @@
+package gg.clouke;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams numeric CSV or TSV files into row batches, parsing several chunks of the file at once.
+ * <p>
+ * The file is read from its channel in chunks which end at a line boundary. Each chunk is parsed on the pool
+ * straight from its bytes into a dense {@link RowMatrix} and the labels of its rows, and the batches are delivered
+ * in file order on the calling thread. At most {@code parallelism} chunks are held at once, however large the file is.
+ * <p>
+ * Every row holds the same amount of numeric columns, one of which is the label. The dimension is inferred
+ * from the first row. Fields are not quoted, empty lines are ignored, and lines may end with {@code \r\n}.
+ *
+ * @author Clouke
+ * @since 19.10.2026 00:20
+ * © shape-network - All Rights Reserved
+ */
+public final class DatasetReader {
+
+  /**
+   * What happens to rows with a missing, extra or non-numeric field, or a label which is not a non-negative integer
+   */
+  public enum Malformed {
+    /**
+     * Skips the row and counts it in {@link #skipped()}
+     */
+    SKIP,
+    /**
+     * Stops reading with an {@link IllegalStateException}
+     */
+    FAIL
+  }
+
+  /**
+   * Receives the parsed rows of a chunk
+   */
+  @FunctionalInterface
+  public interface BatchConsumer {
+
+    /**
+     * @param rows The rows of the chunk
+     * @param labels The label of each row, holding at least as many values as there are rows
+     */
+    void accept(RowMatrix rows, int[] labels);
+
+  }
+
+  private final char delimiter;
+  private final int labelColumn;
+  private final boolean header;
+  private final Malformed malformed;
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  private final int chunkSize;
+
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder skipped = new LongAdder();
+
+  DatasetReader(char delimiter, int labelColumn, boolean header, Malformed malformed, ForkJoinPool pool, int parallelism, int chunkSize) {
+    this.delimiter = delimiter;
+    this.labelColumn = labelColumn;
+    this.header = header;
+    this.malformed = malformed;
+    this.pool = pool;
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Feeds every row of the given file to the given network, in file order
+   *
+   * @param path The file to read
+   * @param network The network to feed
+   * @throws IOException If the file could not be read
+   * @throws IllegalStateException If a row is malformed and malformed rows fail
+   */
+  public void feed(Path path, ShapingNetwork network) throws IOException {
+    read(path, network::train);
+  }
+
+  /**
+   * Reads every row of the given file into batches
+   *
+   * @param path The file to read
+   * @param consumer Receives the batches in file order
+   * @throws IOException If the file could not be read
+   * @throws IllegalStateException If a row is malformed and malformed rows fail
+   */
+  public void read(Path path, BatchConsumer consumer) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      read(channel, consumer);
+    }
+  }
+
+  /**
+   * Reads every row from the given channel into batches, leaving the channel open
+   *
+   * @param channel The channel to read
+   * @param consumer Receives the batches in file order
+   * @throws IOException If the channel could not be read
+   * @throws IllegalStateException If a row is malformed and malformed rows fail
+   */
+  public void read(ReadableByteChannel channel, BatchConsumer consumer) throws IOException {
+    ArrayDeque<Future<Batch>> pending = new ArrayDeque<>(parallelism);
+    byte[] chunk = new byte[chunkSize];
+    int length = 0;
+    long position = 0;
+    int dimension = -1;
+    boolean skipHeader = header;
+    boolean eof = false;
+    try {
+      while (!eof) {
+        ByteBuffer buffer = ByteBuffer.wrap(chunk, length, chunk.length - length);
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer) < 0) {
+            eof = true;
+            break;
+          }
+        }
+        length = buffer.position();
+
+        int end = eof ? length : lastLineEnd(chunk, length);
+        if (end < 0) {
+          chunk = Arrays.copyOf(chunk, chunk.length * 2); // a single line is longer than the chunk
+          continue;
+        }
+
+        int start = 0;
+        if (skipHeader) {
+          int line = nextLineEnd(chunk, 0, end);
+          start = line < 0 ? end : line + 1; // without a line break, the header is the last line
+          skipHeader = false;
+        }
+        if (dimension < 0)
+          dimension = dimensionOf(chunk, start, end);
+
+        // the bytes past the last line boundary are carried over into the next chunk
+        byte[] next = new byte[Math.max(chunkSize, length - end)];
+        System.arraycopy(chunk, end, next, 0, length - end);
+
+        if (end > start && dimension > 0) {
+          byte[] bytes = chunk;
+          int from = start;
+          int to = end;
+          int dim = dimension;
+          long offset = position;
+          pending.add(pool.submit(() -> parse(bytes, from, to, dim, offset)));
+          if (pending.size() >= parallelism)
+            deliver(pending.poll(), consumer);
+        }
+
+        position += end;
+        length -= end;
+        chunk = next;
+      }
+
+      while (!pending.isEmpty())
+        deliver(pending.poll(), consumer);
+    } finally {
+      for (Future<Batch> future : pending)
+        future.cancel(false);
+    }
+  }
+
+  private void deliver(Future<Batch> future, BatchConsumer consumer) {
+    Batch batch;
+    try {
+      batch = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    }
+
+    if (batch.malformed >= 0)
+      throw new IllegalStateException("Malformed row at byte " + batch.malformed);
+
+    rows.add(batch.rows);
+    skipped.add(batch.skipped);
+    if (batch.rows > 0)
+      consumer.accept(new RowMatrix(batch.features, 0, batch.dimension, batch.dimension, batch.rows), batch.labels);
+  }
+
+  /**
+   * Infers the dimension from the first non-empty line, as one less than its amount of columns
+   */
+  private int dimensionOf(byte[] bytes, int from, int to) {
+    for (int p = from; p < to; ) {
+      int end = nextLineEnd(bytes, p, to);
+      if (end < 0)
+        end = to;
+
+      int lineEnd = trimReturn(bytes, p, end);
+      if (lineEnd > p) {
+        int columns = 1;
+        for (int i = p; i < lineEnd; i++)
+          if (bytes[i] == delimiter)
+            columns++;
+        if (columns < 2)
+          throw new IllegalStateException("Rows must hold a label and at least one feature");
+        if (labelColumn >= columns)
+          throw new IllegalStateException("Label column " + labelColumn + " is out of bounds for " + columns + " columns");
+        return columns - 1;
+      }
+      p = end + 1;
+    }
+    return -1; // no rows yet, inferred from the next chunk
+  }
+
+  private Batch parse(byte[] bytes, int from, int to, int dimension, long position) {
+    Batch batch = new Batch(dimension, Math.max(16, (to - from) / Math.max(1, 4 * (dimension + 1))));
+    int label = labelColumn < 0 ? dimension : labelColumn;
+    for (int p = from; p < to; ) {
+      int end = nextLineEnd(bytes, p, to);
+      if (end < 0)
+        end = to;
+
+      int lineEnd = trimReturn(bytes, p, end);
+      if (lineEnd > p && !batch.parseRow(bytes, p, lineEnd, label)) {
+        if (malformed == Malformed.FAIL) {
+          batch.malformed = position + p; // thrown once the batch is delivered, so the first malformed row is reported
+          break;
+        }
+        batch.skipped++;
+      }
+      p = end + 1;
+    }
+    return batch;
+  }
+
+  private int trimReturn(byte[] bytes, int from, int end) {
+    return end > from && bytes[end - 1] == '\r' ? end - 1 : end;
+  }
+
+  private static int nextLineEnd(byte[] bytes, int from, int to) {
+    for (int i = from; i < to; i++)
+      if (bytes[i] == '\n')
+        return i;
+    return -1;
+  }
+
+  private static int lastLineEnd(byte[] bytes, int length) {
+    for (int i = length - 1; i >= 0; i--)
+      if (bytes[i] == '\n')
+        return i + 1;
+    return -1;
+  }
+
+  /**
+   * Gets the amount of rows read by this reader
+   *
+   * @return Returns the amount of delivered rows
+   */
+  public long rows() {
+    return rows.sum();
+  }
+
+  /**
+   * Gets the amount of malformed rows skipped by this reader
+   *
+   * @return Returns the amount of skipped rows
+   */
+  public long skipped() {
+    return skipped.sum();
+  }
+
+  /**
+   * The rows parsed from a chunk, growing as rows are added
+   */
+  private final class Batch {
+
+    private final int dimension;
+    private double[] features;
+    private int[] labels;
+    private int rows;
+    private int skipped;
+    private long malformed = -1;
+
+    private Batch(int dimension, int capacity) {
+      this.dimension = dimension;
+      this.features = new double[capacity * dimension];
+      this.labels = new int[capacity];
+    }
+
+    /**
+     * Parses a line into the next row
+     *
+     * @return Returns false if the line is malformed, leaving the batch unchanged
+     */
+    private boolean parseRow(byte[] bytes, int from, int to, int labelColumn) {
+      if (rows == labels.length) {
+        labels = Arrays.copyOf(labels, rows * 2);
+        features = Arrays.copyOf(features, rows * 2 * dimension);
+      }
+
+      int offset = rows * dimension;
+      int column = 0;
+      int feature = 0;
+      int start = from;
+      try {
+        for (int i = from; i <= to; i++) {
+          if (i < to && bytes[i] != delimiter)
+            continue;
+
+          if (column == labelColumn)
+            labels[rows] = NumberParser.parseIndex(bytes, start, i);
+          else if (feature < dimension)
+            features[offset + feature++] = NumberParser.parse(bytes, start, i);
+          else
+            return false; // too many columns
+
+          column++;
+          start = i + 1;
+        }
+      } catch (NumberFormatException e) {
+        return false;
+      }
+
+      if (column != dimension + 1)
+        return false;
+      rows++;
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+package gg.clouke;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A builder class for {@link DatasetReader}
+ *
+ * @author Clouke
+ * @since 19.10.2026 00:20
+ * © shape-network - All Rights Reserved
+ */
+public class DatasetReaderBuilder {
+
+  private char delimiter = ',';
+  private int labelColumn = -1;
+  private boolean header;
+  private DatasetReader.Malformed malformed = DatasetReader.Malformed.FAIL;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private int parallelism = -1;
+  private int chunkSize = 4 << 20;
+
+  /**
+   * Sets the character separating the fields of a row, which is a comma by default
+   *
+   * @param delimiter The delimiter, such as {@code '\t'} for TSV files
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder delimiter(char delimiter) {
+    if (delimiter == '\n' || delimiter == '\r' || delimiter > 0x7F)
+      throw new IllegalArgumentException("Delimiter must be an ASCII character other than a line break");
+
+    this.delimiter = delimiter;
+    return this;
+  }
+
+  /**
+   * Sets the column holding the label of each row, which is the last column by default
+   *
+   * @param labelColumn The index of the label column
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder labelColumn(int labelColumn) {
+    if (labelColumn < 0)
+      throw new IllegalArgumentException("Label column cannot be negative");
+
+    this.labelColumn = labelColumn;
+    return this;
+  }
+
+  /**
+   * Sets whether the first line is a header, which is skipped
+   *
+   * @param header Whether the file starts with a header
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder header(boolean header) {
+    this.header = header;
+    return this;
+  }
+
+  /**
+   * Sets what happens to malformed rows, which fail the read by default
+   *
+   * @param malformed The policy for malformed rows
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder malformed(DatasetReader.Malformed malformed) {
+    this.malformed = Objects.requireNonNull(malformed, "Policy cannot be null");
+    return this;
+  }
+
+  /**
+   * Sets the pool parsing the chunks, which is the common pool by default
+   *
+   * @param pool The pool to parse on
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder pool(ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool, "Pool cannot be null");
+    return this;
+  }
+
+  /**
+   * Sets the amount of chunks which are read ahead and parsed at once,
+   * which is one more than the parallelism of the pool by default
+   *
+   * @param parallelism The amount of chunks in flight
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder parallelism(int parallelism) {
+    if (parallelism <= 0)
+      throw new IllegalArgumentException("Parallelism must be positive");
+
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Sets the amount of bytes read into each chunk, which is 4 MiB by default
+   *
+   * @param chunkSize The size of a chunk in bytes
+   * @return Returns this reader builder for chaining
+   */
+  public DatasetReaderBuilder chunkSize(int chunkSize) {
+    if (chunkSize <= 0)
+      throw new IllegalArgumentException("Chunk size must be positive");
+
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  public DatasetReader build() {
+    int chunks = parallelism > 0 ? parallelism : pool.getParallelism() + 1;
+    return new DatasetReader(delimiter, labelColumn, header, malformed, pool, chunks, chunkSize);
+  }
+
+}
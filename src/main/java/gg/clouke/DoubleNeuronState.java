@@ -0,0 +1,50 @@
+package gg.clouke;
+
+/**
+ * A {@link NeuronState} storing its vectors in double precision
+ *
+ * @author Clouke
+ * @since 18.10.2026 15:31
+ * © shape-network - All Rights Reserved
+ */
+final class DoubleNeuronState extends NeuronState {
+
+  private final ContextVector sum;
+  private ContextVector shape;
+
+  DoubleNeuronState(int dimension) {
+    this.sum = ContextVector.fill(dimension, 0.0);
+    this.shape = ContextVector.fill(dimension, 0.0);
+  }
+
+  @Override
+  ContextVector sum() {
+    return sum;
+  }
+
+  @Override
+  ContextVector shape() {
+    return shape;
+  }
+
+  @Override
+  void replaceShape(ContextVector shape) {
+    this.shape = shape;
+  }
+
+  @Override
+  double shapeAt(int index) {
+    return shape.get(index);
+  }
+
+  @Override
+  double cosine(ContextVector x) {
+    return x.cosine(shape);
+  }
+
+  @Override
+  Precision precision() {
+    return Precision.DOUBLE;
+  }
+
+}
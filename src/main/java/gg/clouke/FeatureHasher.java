@@ -0,0 +1,213 @@
+package gg.clouke;
+
+import java.util.Arrays;
+
+/**
+ * Encodes named numeric, categorical and token features into a fixed-width vector through signed feature hashing.
+ * <p>
+ * The width caps the input dimension, and so the memory of every neuron, however large the vocabulary grows.
+ * Each feature is hashed once, where the upper 31 bits of the hash pick its index and the lowest bit decides the sign of its value,
+ * so colliding features cancel out in expectation rather than bias the shared dimension.
+ * <p>
+ * Every thread encodes into its own reused buffer, so encoding allocates nothing per request:
+ * <pre>{@code
+ * hasher.encode()
+ *   .add("country", "SE")
+ *   .add("age", 31)
+ *   .feed(network, target);
+ * }</pre>
+ *
+ * @author Clouke
+ * @since 18.10.2026 20:21
+ * © shape-network - All Rights Reserved
+ */
+public final class FeatureHasher {
+
+  private final int width;
+  private final int seed;
+  private final boolean sparse;
+  private final ThreadLocal<Encoding> encodings;
+
+  public FeatureHasher(int width) {
+    this(width, 0, false);
+  }
+
+  /**
+   * @param width The width of the encoded vectors
+   * @param seed The seed of the hash function, which must be kept to encode for the same network again
+   * @param sparse Whether to encode into a {@link SparseContextVector} rather than a dense vector
+   */
+  public FeatureHasher(int width, int seed, boolean sparse) {
+    if (width <= 0)
+      throw new IllegalArgumentException("Width must be positive");
+
+    this.width = width;
+    this.seed = seed;
+    this.sparse = sparse;
+    this.encodings = ThreadLocal.withInitial(Encoding::new);
+  }
+
+  /**
+   * Gets the width of the encoded vectors, which is the input size of the network
+   *
+   * @return Returns the width of the encoded vectors
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * Starts a new encoding on the buffer of the current thread,
+   * which invalidates the previous encoding of this thread
+   *
+   * @return Returns the cleared encoding of the current thread
+   */
+  public Encoding encode() {
+    return encodings.get().clear();
+  }
+
+  /**
+   * Hashes a sequence of characters with MurmurHash3
+   */
+  private static int hash(CharSequence chars, int seed) {
+    int h = seed;
+    int length = chars.length();
+    for (int i = 0; i + 1 < length; i += 2) {
+      int k = chars.charAt(i) | (chars.charAt(i + 1) << 16);
+      h = mixHash(h, k);
+    }
+    if ((length & 1) == 1)
+      h ^= mixKey(chars.charAt(length - 1));
+    h ^= length;
+    return finish(h);
+  }
+
+  private static int mixKey(int k) {
+    k *= 0xcc9e2d51;
+    k = Integer.rotateLeft(k, 15);
+    k *= 0x1b873593;
+    return k;
+  }
+
+  private static int mixHash(int h, int k) {
+    h ^= mixKey(k);
+    h = Integer.rotateLeft(h, 13);
+    return h * 5 + 0xe6546b64;
+  }
+
+  private static int finish(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * The reused encoding buffer of one thread.
+   * Its vector stays valid until the next {@link FeatureHasher#encode()} on the same thread.
+   */
+  public final class Encoding {
+
+    private final ContextVector vector;
+    private int[] touched = new int[16];
+    private int numTouched;
+
+    private Encoding() {
+      this.vector = sparse
+        ? new SparseContextVector(width)
+        : ContextVector.fill(width, 0.0);
+    }
+
+    private Encoding clear() {
+      if (sparse)
+        ((SparseContextVector) vector).clear();
+      else {
+        double[] values = vector.values();
+        for (int i = 0; i < numTouched; i++)
+          values[touched[i]] = 0.0;
+      }
+      numTouched = 0;
+      return this;
+    }
+
+    /**
+     * Adds a numeric feature
+     *
+     * @param name The name of the feature
+     * @param value The value of the feature
+     * @return Returns this encoding for chaining
+     */
+    public Encoding add(CharSequence name, double value) {
+      put(hash(name, seed), value);
+      return this;
+    }
+
+    /**
+     * Adds a categorical feature, as a one-hot value of its name and category
+     *
+     * @param name The name of the feature
+     * @param category The category of the feature
+     * @return Returns this encoding for chaining
+     */
+    public Encoding add(CharSequence name, CharSequence category) {
+      put(hash(category, hash(name, seed)), 1.0);
+      return this;
+    }
+
+    /**
+     * Adds a token, such as a word of a text, with a count of one
+     *
+     * @param token The token to add
+     * @return Returns this encoding for chaining
+     */
+    public Encoding add(CharSequence token) {
+      return add(token, 1.0);
+    }
+
+    private void put(int h, double value) {
+      int index = (h >>> 1) % width;
+      double signed = (h & 1) == 0 ? value : -value;
+      if (sparse) {
+        ((SparseContextVector) vector).accumulate(index, signed);
+        return;
+      }
+
+      if (numTouched == touched.length)
+        touched = Arrays.copyOf(touched, touched.length * 2);
+      touched[numTouched++] = index;
+      vector.values()[index] += signed;
+    }
+
+    /**
+     * Gets the encoded vector, which is reused by the next encoding of this thread
+     *
+     * @return Returns the encoded vector
+     */
+    public ContextVector vector() {
+      return vector;
+    }
+
+    /**
+     * Feeds the encoded vector to the given network
+     *
+     * @param network The network to feed
+     * @param target The target of the encoded sample
+     */
+    public void feed(ShapingNetwork network, int target) {
+      network.feed(vector, target);
+    }
+
+    /**
+     * Predicts the encoded vector with the given network
+     *
+     * @param predictor The network to predict with
+     * @return Returns an array of probabilities for each layer
+     */
+    public double[] predict(Predictor predictor) {
+      return predictor.predict(vector);
+    }
+  }
+
+}
@@ -0,0 +1,253 @@
+package gg.clouke;
+
+import java.util.Arrays;
+
+/**
+ * Collects per-dimension statistics of a stream of vectors in a single pass,
+ * and scales vectors in place with them before they are fed or predicted.
+ * <p>
+ * The mean and variance are updated with Welford's algorithm, so they stay accurate over long streams.
+ * A normalizer is not thread-safe, but each thread or partition can observe its own share of the data
+ * into its own normalizer, after which they are combined with {@link #merge(FeatureNormalizer)}.
+ * <p>
+ * The {@link Shapes#LOG_MEAN}, {@link Shapes#GEOMETRIC_MEAN} and {@link Shapes#HARMONIC_MEAN} shapes need positive inputs,
+ * which {@link Scaling#MIN_MAX} provides with a positive range, such as {@code range(1.0, 2.0)}.
+ *
+ * @author Clouke
+ * @since 18.10.2026 21:32
+ * © shape-network - All Rights Reserved
+ */
+public final class FeatureNormalizer {
+
+  /**
+   * The ways a normalizer can scale each dimension
+   */
+  public enum Scaling {
+    /**
+     * Subtracts the mean and divides by the standard deviation
+     */
+    Z_SCORE,
+    /**
+     * Maps the observed minimum and maximum onto the range of the normalizer,
+     * clamping values outside of the observed range to its bounds
+     */
+    MIN_MAX
+  }
+
+  private final int dimension;
+  private final Scaling scaling;
+  private final double[] mean;
+  private final double[] m2;
+  private final double[] min;
+  private final double[] max;
+  private long count;
+  private double lower = 0.0;
+  private double upper = 1.0;
+
+  /**
+   * @param dimension The dimension of the vectors to normalize
+   * @param scaling The scaling to apply
+   */
+  public FeatureNormalizer(int dimension, Scaling scaling) {
+    if (dimension <= 0)
+      throw new IllegalArgumentException("Dimension must be positive");
+
+    this.dimension = dimension;
+    this.scaling = scaling;
+    this.mean = new double[dimension];
+    this.m2 = new double[dimension];
+    this.min = new double[dimension];
+    this.max = new double[dimension];
+    Arrays.fill(min, Double.POSITIVE_INFINITY);
+    Arrays.fill(max, Double.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Sets the range {@link Scaling#MIN_MAX} maps each dimension onto, which is [0, 1] by default
+   *
+   * @param lower The value the observed minimum is mapped to
+   * @param upper The value the observed maximum is mapped to
+   * @return Returns this normalizer for chaining
+   */
+  public FeatureNormalizer range(double lower, double upper) {
+    if (!(lower < upper))
+      throw new IllegalArgumentException("Lower bound must be less than the upper bound");
+
+    this.lower = lower;
+    this.upper = upper;
+    return this;
+  }
+
+  /**
+   * Updates the statistics with the given vector
+   *
+   * @param vector The vector to observe
+   * @return Returns this normalizer for chaining
+   * @throws IllegalStateException If the vector does not have the dimension of this normalizer
+   */
+  public FeatureNormalizer observe(ContextVector vector) {
+    checkDimension(vector);
+    return observe(vector.values(), 0);
+  }
+
+  /**
+   * Updates the statistics with a row of a flat array
+   *
+   * @param values The array holding the row
+   * @param offset The offset of the row within the array
+   * @return Returns this normalizer for chaining
+   */
+  public FeatureNormalizer observe(double[] values, int offset) {
+    count++;
+    for (int i = 0; i < dimension; i++) {
+      double x = values[offset + i];
+      double delta = x - mean[i];
+      mean[i] += delta / count;
+      m2[i] += delta * (x - mean[i]);
+      if (x < min[i])
+        min[i] = x;
+      if (x > max[i])
+        max[i] = x;
+    }
+    return this;
+  }
+
+  /**
+   * Combines the statistics of the given normalizer into this normalizer,
+   * as if this normalizer had observed the vectors of both
+   *
+   * @param other The normalizer to merge
+   * @return Returns this normalizer for chaining
+   * @throws IllegalStateException If the normalizers have different dimensions
+   */
+  public FeatureNormalizer merge(FeatureNormalizer other) {
+    if (other.dimension != dimension)
+      throw new IllegalStateException("Dimension of both normalizers must be equal");
+    if (other.count == 0)
+      return this;
+
+    long total = count + other.count;
+    for (int i = 0; i < dimension; i++) {
+      double delta = other.mean[i] - mean[i];
+      mean[i] += delta * other.count / total;
+      m2[i] += other.m2[i] + delta * delta * ((double) count * other.count / total);
+      min[i] = Math.min(min[i], other.min[i]);
+      max[i] = Math.max(max[i], other.max[i]);
+    }
+    count = total;
+    return this;
+  }
+
+  /**
+   * Scales the given vector in place.
+   * Dimensions without any spread are mapped to 0 by {@link Scaling#Z_SCORE}, and to the lower bound by {@link Scaling#MIN_MAX}.
+   *
+   * @param vector The vector to scale
+   * @return Returns the given vector for chaining
+   * @throws IllegalStateException If nothing has been observed, or the vector does not have the dimension of this normalizer
+   */
+  public ContextVector apply(ContextVector vector) {
+    checkDimension(vector);
+    if (count == 0)
+      throw new IllegalStateException("Normalizer has not observed any vectors");
+
+    if (vector.sparse()) {
+      for (int i = 0; i < dimension; i++)
+        vector.modify(i, scale(i, vector.get(i)));
+      return vector;
+    }
+
+    double[] values = vector.values();
+    for (int i = 0; i < dimension; i++)
+      values[i] = scale(i, values[i]);
+    return vector;
+  }
+
+  private double scale(int i, double x) {
+    if (scaling == Scaling.Z_SCORE) {
+      double deviation = standardDeviation(i);
+      return deviation > 0.0 ? (x - mean[i]) / deviation : 0.0;
+    }
+
+    double spread = max[i] - min[i];
+    if (spread <= 0.0 || x <= min[i])
+      return lower;
+    if (x >= max[i])
+      return upper;
+    return lower + (x - min[i]) / spread * (upper - lower);
+  }
+
+  private void checkDimension(ContextVector vector) {
+    if (vector.dimension() != dimension)
+      throw new IllegalStateException("Dimension of the vector must be " + dimension + ", but was " + vector.dimension());
+  }
+
+  /**
+   * Gets the amount of observed vectors
+   *
+   * @return Returns the amount of observed vectors
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Gets the dimension of the vectors to normalize
+   *
+   * @return Returns the dimension
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets the mean of the given dimension
+   *
+   * @param i The dimension
+   * @return Returns the mean of the observed values
+   */
+  public double mean(int i) {
+    return mean[i];
+  }
+
+  /**
+   * Gets the population variance of the given dimension
+   *
+   * @param i The dimension
+   * @return Returns the variance of the observed values
+   */
+  public double variance(int i) {
+    return count > 0 ? m2[i] / count : 0.0;
+  }
+
+  /**
+   * Gets the population standard deviation of the given dimension
+   *
+   * @param i The dimension
+   * @return Returns the standard deviation of the observed values
+   */
+  public double standardDeviation(int i) {
+    return Math.sqrt(variance(i));
+  }
+
+  /**
+   * Gets the minimum of the given dimension
+   *
+   * @param i The dimension
+   * @return Returns the smallest observed value
+   */
+  public double min(int i) {
+    return min[i];
+  }
+
+  /**
+   * Gets the maximum of the given dimension
+   *
+   * @param i The dimension
+   * @return Returns the largest observed value
+   */
+  public double max(int i) {
+    return max[i];
+  }
+
+}
@@ -0,0 +1,147 @@
+package gg.clouke;
+
+/**
+ * A {@link NeuronState} storing its vectors in single precision.
+ * The vectors are widened into per-thread working vectors while shaping,
+ * and the compensated variant keeps the rounding error of the sum in a second float.
+ *
+ * @author Clouke
+ * @since 18.10.2026 15:31
+ * © shape-network - All Rights Reserved
+ */
+final class FloatNeuronState extends NeuronState {
+
+  private final boolean compensated;
+  private float[] sum;
+  private float[] sumError;
+  private float[] shape;
+
+  private ContextVector workingSum;
+  private ContextVector workingShape;
+
+  FloatNeuronState(int dimension, boolean compensated) {
+    this.compensated = compensated;
+    this.sum = new float[dimension];
+    this.sumError = compensated ? new float[dimension] : null;
+    this.shape = new float[dimension];
+  }
+
+  @Override
+  void acquire() {
+    ContextVector[] scratch = scratch();
+    workingSum = widenSum(scratch[0]);
+    workingShape = widen(shape, scratch[1]);
+  }
+
+  @Override
+  void release() {
+    if (workingSum == null)
+      return;
+
+    narrowSum(workingSum);
+    shape = narrow(workingShape, shape);
+    workingSum = null;
+    workingShape = null;
+  }
+
+  @Override
+  ContextVector sum() {
+    return workingSum != null
+      ? workingSum
+      : widenSum(ContextVector.withCapacity(sum.length));
+  }
+
+  @Override
+  ContextVector shape() {
+    return workingShape != null
+      ? workingShape
+      : widen(shape, ContextVector.withCapacity(shape.length));
+  }
+
+  @Override
+  void replaceShape(ContextVector shape) {
+    if (workingShape != null)
+      workingShape = shape;
+    else
+      this.shape = narrow(shape, this.shape);
+  }
+
+  @Override
+  double shapeAt(int index) {
+    return shape[index];
+  }
+
+  @Override
+  double cosine(ContextVector x) {
+    if (shape.length < x.dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
+
+    double[] a = x.values();
+    float[] b = shape;
+    double dotProduct = 0.0;
+    double normX = 0.0;
+    double normY = 0.0;
+
+    for (int i = 0; i < x.dimension(); i++) {
+      double xi = a[i];
+      double yi = b[i];
+      dotProduct += xi * yi;
+      normX += xi * xi;
+      normY += yi * yi;
+    }
+
+    double magnitudeX = Math.sqrt(normX);
+    double magnitudeY = Math.sqrt(normY);
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  @Override
+  Precision precision() {
+    return compensated ? Precision.FLOAT32_COMPENSATED : Precision.FLOAT32;
+  }
+
+  private ContextVector widenSum(ContextVector into) {
+    double[] values = into.resize(sum.length).values();
+    for (int i = 0; i < sum.length; i++)
+      values[i] = compensated
+        ? (double) sum[i] + sumError[i]
+        : sum[i];
+    return into;
+  }
+
+  private void narrowSum(ContextVector from) {
+    if (from.dimension() != sum.length) {
+      sum = new float[from.dimension()];
+      if (compensated)
+        sumError = new float[from.dimension()];
+    }
+
+    double[] values = from.values();
+    for (int i = 0; i < sum.length; i++) {
+      float high = (float) values[i];
+      sum[i] = high;
+      if (compensated)
+        sumError[i] = (float) (values[i] - high);
+    }
+  }
+
+  private static ContextVector widen(float[] from, ContextVector into) {
+    double[] values = into.resize(from.length).values();
+    for (int i = 0; i < from.length; i++)
+      values[i] = from[i];
+    return into;
+  }
+
+  private static float[] narrow(ContextVector from, float[] into) {
+    float[] values = into.length == from.dimension() ? into : new float[from.dimension()];
+    double[] x = from.values();
+    for (int i = 0; i < values.length; i++)
+      values[i] = (float) x[i];
+    return values;
+  }
+
+}
@@ -0,0 +1,32 @@
+package gg.clouke;
+
+/**
+ * A shaping function which writes the shaped weights straight into
+ * the existing shape buffer of a neuron, instead of allocating a new vector
+ *
+ * @author Clouke
+ * @since 18.10.2026 10:12
+ * © shape-network - All Rights Reserved
+ */
+@FunctionalInterface
+public interface InPlaceShapingFunction extends ShapingFunction {
+
+  /**
+   * Performs the shaping function on the given node, n and w,
+   * and writes the result into the given shape vector
+   *
+   * @param node The node to perform the shaping function on
+   * @param n The amount of times this neuron has been shaped
+   * @param w The context vector to shape the neuron with
+   * @param shape The shape vector to write the result into
+   */
+  void shapeInto(Neuron node, int n, ContextVector w, ContextVector shape);
+
+  @Override
+  default ContextVector apply(Neuron node, int n, ContextVector w) {
+    ContextVector shape = ContextVector.withCapacity(w.dimension());
+    shapeInto(node, n, w, shape);
+    return shape;
+  }
+
+}
@@ -0,0 +1,66 @@
+package gg.clouke;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A blocking client for an {@link InferenceServer}, holding a single connection.
+ * A client is not thread-safe, concurrent callers open a client each.
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:05
+ * © shape-network - All Rights Reserved
+ */
+public final class InferenceClient implements AutoCloseable {
+
+  private final Socket socket;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  /**
+   * @param host The host of the server
+   * @param port The port of the server
+   * @throws IOException If the server could not be reached
+   */
+  public InferenceClient(String host, int port) throws IOException {
+    this.socket = new Socket(host, port);
+    socket.setTcpNoDelay(true);
+    this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+  }
+
+  /**
+   * Sends the given input to the server and waits for its probabilities
+   *
+   * @param vector The input vector to predict the probabilities of
+   * @return Returns an array of probabilities for each layer
+   * @throws IOException If the connection failed
+   * @throws IllegalStateException If the server could not score the input
+   */
+  public double[] predict(ContextVector vector) throws IOException {
+    double[] values = vector.values();
+    out.writeInt(vector.dimension());
+    for (int i = 0; i < vector.dimension(); i++)
+      out.writeDouble(values[i]);
+    out.flush();
+
+    int layers = in.readInt();
+    if (layers < 0)
+      throw new IllegalStateException(in.readUTF());
+
+    double[] probabilities = new double[layers];
+    for (int i = 0; i < layers; i++)
+      probabilities[i] = in.readDouble();
+    return probabilities;
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+
+}
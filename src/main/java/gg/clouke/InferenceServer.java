@@ -0,0 +1,340 @@
+package gg.clouke;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An embedded server exposing a {@link Predictor} over TCP with a compact binary protocol.
+ * <p>
+ * Each request is a big-endian {@code int} dimension followed by that many {@code double}s,
+ * and is answered with an {@code int} amount of layers followed by that many probabilities.
+ * A failed request is answered with an amount of {@code -1} followed by a {@link DataOutputStream#writeUTF(String) UTF} message.
+ * A connection sends its next request once the previous one is answered, and stays open until the client closes it.
+ * <p>
+ * Connections are served on a virtual thread each when running on Java 21 or later, and on a cached thread pool otherwise.
+ * A single batcher thread coalesces the requests of all connections which arrive within a short window
+ * into one batched scoring pass through {@link Predictor#predict(double[], int)}.
+ * <p>
+ * The server only depends on the JDK, so it ships within the core jar and costs nothing until it is started.
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:05
+ * © shape-network - All Rights Reserved
+ */
+public final class InferenceServer implements AutoCloseable {
+
+  /**
+   * The largest dimension a request may have
+   */
+  public static final int MAX_DIMENSION = 1 << 24;
+
+  private static final int READ_CHUNK = 1 << 12;
+  private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Predictor predictor;
+  private final ServerSocket serverSocket;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final int dimension;
+  private final BlockingQueue<Request> queue;
+  private final ExecutorService connections;
+  private final boolean virtualThreads;
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+  private final Thread acceptor;
+  private final Thread batcher;
+  private volatile boolean closed;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final AtomicInteger maxBatch = new AtomicInteger();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+  InferenceServer(Predictor predictor, InetAddress address, int port, int maxBatchSize, long maxDelayNanos, int queueCapacity, int dimension) throws IOException {
+    this.predictor = predictor;
+    this.dimension = dimension;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelayNanos;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.serverSocket = new ServerSocket(port, 128, address);
+
+    ExecutorService virtual = virtualThreadExecutor();
+    this.virtualThreads = virtual != null;
+    this.connections = virtual != null
+      ? virtual
+      : Executors.newCachedThreadPool(daemon("shape-network-connection"));
+
+    this.acceptor = daemon("shape-network-acceptor").newThread(this::accept);
+    this.batcher = daemon("shape-network-batcher").newThread(this::batch);
+    acceptor.start();
+    batcher.start();
+  }
+
+  /**
+   * Creates an executor starting a virtual thread per task, which is only available on Java 21 or later
+   *
+   * @return Returns the executor, or null when virtual threads are not available
+   */
+  private static ExecutorService virtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+        .getMethod("newVirtualThreadPerTaskExecutor")
+        .invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null; // older runtimes, or virtual threads still in preview
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private void accept() {
+    long backoff = 0;
+    while (!closed) {
+      try {
+        Socket socket = serverSocket.accept();
+        backoff = 0;
+        socket.setTcpNoDelay(true);
+        sockets.add(socket);
+        connections.execute(() -> serve(socket));
+      } catch (IOException e) {
+        if (closed)
+          return;
+        // persistent failures, such as running out of file descriptors, are retried with a growing delay
+        backoff = Math.min(MAX_BACKOFF_NANOS, Math.max(MIN_BACKOFF_NANOS, backoff * 2));
+        try {
+          TimeUnit.NANOSECONDS.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      } catch (RuntimeException e) {
+        return; // the executor was shut down while closing
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (Socket s = socket;
+         DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+      while (!closed) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch (EOFException e) {
+          return; // the client closed the connection
+        }
+
+        if (length < 0 || length > MAX_DIMENSION) {
+          fail(out, "Dimension must be between 0 and " + MAX_DIMENSION);
+          return; // the rest of the stream cannot be trusted
+        }
+        if (dimension > 0 && length != dimension) {
+          fail(out, "Dimension of input must be " + dimension);
+          return;
+        }
+
+        // grows with the values which arrived, so a bare header does not allocate the whole request
+        double[] values = new double[Math.min(length, READ_CHUNK)];
+        for (int i = 0; i < length; i++) {
+          if (i == values.length)
+            values = Arrays.copyOf(values, (int) Math.min(length, values.length * 2L));
+          values[i] = in.readDouble();
+        }
+
+        Request request = new Request(values);
+        if (!queue.offer(request)) {
+          rejected.increment();
+          fail(out, "Server is overloaded");
+          continue;
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+
+        double[] probabilities;
+        try {
+          probabilities = request.result.get();
+        } catch (ExecutionException e) {
+          fail(out, String.valueOf(e.getCause().getMessage()));
+          continue;
+        }
+
+        out.writeInt(probabilities.length);
+        for (double probability : probabilities)
+          out.writeDouble(probability);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the connection was reset, or the server closed it
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      sockets.remove(socket);
+    }
+  }
+
+  private static void fail(DataOutputStream out, String message) throws IOException {
+    out.writeInt(-1);
+    out.writeUTF(message);
+    out.flush();
+  }
+
+  private void batch() {
+    List<Request> batch = new ArrayList<>(maxBatchSize);
+    while (!closed) {
+      try {
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+          if (next == null)
+            break;
+
+          batch.add(next);
+          queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        break;
+      }
+
+      score(batch);
+      batch.clear();
+    }
+
+    batch.addAll(queue);
+    for (Request request : batch)
+      request.result.completeExceptionally(new IllegalStateException("Server is closed"));
+  }
+
+  /**
+   * Scores the given requests in one pass per distinct dimension among them
+   */
+  private void score(List<Request> batch) {
+    batches.increment();
+    maxBatch.accumulateAndGet(batch.size(), Math::max);
+
+    List<Request> group = new ArrayList<>(batch.size());
+    List<Request> remaining = batch;
+    while (!remaining.isEmpty()) {
+      int dimension = remaining.get(0).values.length;
+      List<Request> rest = new ArrayList<>();
+      group.clear();
+      for (Request request : remaining)
+        (request.values.length == dimension ? group : rest).add(request);
+
+      double[] inputs = new double[group.size() * dimension];
+      for (int b = 0; b < group.size(); b++)
+        System.arraycopy(group.get(b).values, 0, inputs, b * dimension, dimension);
+
+      try {
+        double[][] probabilities = predictor.predict(inputs, group.size());
+        for (int b = 0; b < group.size(); b++)
+          group.get(b).result.complete(probabilities[b]);
+      } catch (RuntimeException e) {
+        for (Request request : group)
+          request.result.completeExceptionally(e);
+      }
+
+      requests.add(group.size());
+      remaining = rest;
+    }
+  }
+
+  /**
+   * Gets the port this server listens on
+   *
+   * @return Returns the bound port
+   */
+  public int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Gets whether connections are served on virtual threads
+   *
+   * @return Returns whether virtual threads are used
+   */
+  public boolean virtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Gets the load of this server since it was started
+   *
+   * @return Returns the current statistics
+   */
+  public ServerStats stats() {
+    return new ServerStats(
+      requests.sum(),
+      rejected.sum(),
+      batches.sum(),
+      maxBatch.get(),
+      queue.size(),
+      maxQueueDepth.get()
+    );
+  }
+
+  /**
+   * Stops accepting connections, closes the open connections and fails the requests still waiting to be batched
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      serverSocket.close();
+    } catch (IOException ignored) {
+    }
+
+    for (Socket socket : sockets) {
+      try {
+        socket.close();
+      } catch (IOException ignored) {
+      }
+    }
+    batcher.interrupt();
+    connections.shutdownNow();
+  }
+
+  /**
+   * A request waiting for its batch to be scored
+   */
+  private static final class Request {
+
+    private final double[] values;
+    private final CompletableFuture<double[]> result = new CompletableFuture<>();
+
+    private Request(double[] values) {
+      this.values = values;
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+package gg.clouke;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A builder class for {@link InferenceServer}
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:05
+ * © shape-network - All Rights Reserved
+ */
+public class InferenceServerBuilder {
+
+  private final Predictor predictor;
+  private InetAddress address = InetAddress.getLoopbackAddress();
+  private int port;
+  private int maxBatchSize = 64;
+  private long maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(500);
+  private int queueCapacity = 4096;
+  private int dimension;
+
+  /**
+   * @param predictor The predictor to serve, such as {@link ShapingNetwork#snapshotPredictor()} to serve while training.
+   *                  The dimension of a {@link CompiledNetwork} is enforced by default.
+   */
+  public InferenceServerBuilder(Predictor predictor) {
+    this.predictor = Objects.requireNonNull(predictor, "Predictor cannot be null");
+    if (predictor instanceof CompiledNetwork)
+      this.dimension = ((CompiledNetwork) predictor).dimension();
+  }
+
+  /**
+   * Sets the dimension of the inputs of the predictor, so requests of any other dimension are rejected before their values are read.
+   * Without it, a request may hold up to {@link InferenceServer#MAX_DIMENSION} values, which are read in growing chunks,
+   * so a connection only holds memory for the values which actually arrived.
+   *
+   * @param dimension The input dimension, or 0 to accept any dimension
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder dimension(int dimension) {
+    if (dimension < 0 || dimension > InferenceServer.MAX_DIMENSION)
+      throw new IllegalArgumentException("Dimension must be between 0 and " + InferenceServer.MAX_DIMENSION);
+
+    this.dimension = dimension;
+    return this;
+  }
+
+  /**
+   * Sets the address to listen on, which is the loopback address by default
+   *
+   * @param address The address to listen on
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder address(InetAddress address) {
+    this.address = Objects.requireNonNull(address, "Address cannot be null");
+    return this;
+  }
+
+  /**
+   * Sets the port to listen on, where 0 picks a free port
+   *
+   * @param port The port to listen on
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder port(int port) {
+    if (port < 0 || port > 0xFFFF)
+      throw new IllegalArgumentException("Port is out of range");
+
+    this.port = port;
+    return this;
+  }
+
+  /**
+   * Sets the largest amount of requests which are scored in one batch
+   *
+   * @param maxBatchSize The largest batch size
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder maxBatchSize(int maxBatchSize) {
+    if (maxBatchSize <= 0)
+      throw new IllegalArgumentException("Batch size must be positive");
+
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  /**
+   * Sets how long the first request of a batch waits for others to join it
+   *
+   * @param delay The longest delay
+   * @param unit The unit of the delay
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder maxDelay(long delay, TimeUnit unit) {
+    if (delay < 0)
+      throw new IllegalArgumentException("Delay cannot be negative");
+
+    this.maxDelayNanos = unit.toNanos(delay);
+    return this;
+  }
+
+  /**
+   * Sets the amount of requests which can wait to be batched, beyond which requests are rejected
+   *
+   * @param queueCapacity The capacity of the queue
+   * @return Returns this server builder for chaining
+   */
+  public InferenceServerBuilder queueCapacity(int queueCapacity) {
+    if (queueCapacity <= 0)
+      throw new IllegalArgumentException("Queue capacity must be positive");
+
+    this.queueCapacity = queueCapacity;
+    return this;
+  }
+
+  /**
+   * Binds and starts the server
+   *
+   * @return Returns the started server
+   * @throws UncheckedIOException If the server could not be bound
+   */
+  public InferenceServer start() {
+    try {
+      return new InferenceServer(predictor, address, port, maxBatchSize, maxDelayNanos, queueCapacity, dimension);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not bind the inference server", e);
+    }
+  }
+
+}
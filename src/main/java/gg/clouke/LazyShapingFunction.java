@@ -0,0 +1,39 @@
+package gg.clouke;
+
+/**
+ * A shaping function which is split into accumulating the statistics of a neuron
+ * and materializing its shape vector from them, so the shape vector
+ * only has to be computed once it is read after a change
+ *
+ * @author Clouke
+ * @since 18.10.2026 11:02
+ * © shape-network - All Rights Reserved
+ */
+public interface LazyShapingFunction extends InPlaceShapingFunction {
+
+  /**
+   * Accumulates the given vector into the statistics of the given node
+   *
+   * @param node The node to accumulate the vector into
+   * @param n The amount of times this neuron has been shaped
+   * @param w The context vector to shape the neuron with
+   */
+  void accumulate(Neuron node, int n, ContextVector w);
+
+  /**
+   * Computes the shape vector of the given node from its statistics
+   *
+   * @param node The node to compute the shape vector of
+   * @param n The amount of times this neuron had been shaped on the last accumulation
+   * @param w The context vector of the last accumulation
+   * @param shape The shape vector to write the result into
+   */
+  void materialize(Neuron node, int n, ContextVector w, ContextVector shape);
+
+  @Override
+  default void shapeInto(Neuron node, int n, ContextVector w, ContextVector shape) {
+    accumulate(node, n, w);
+    materialize(node, n, w, shape);
+  }
+
+}
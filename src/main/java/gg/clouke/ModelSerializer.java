@@ -0,0 +1,546 @@
+package gg.clouke;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Saves trained networks into a versioned binary model file, and loads them back either to continue training or to serve predictions.
+ * <p>
+ * Every section of the file is little-endian, and the sections are located through the offsets in the header:
+ * <pre>
+ *   0  int32   magic, the bytes "SNMS"
+ *   4  int32   version
+ *   8  int32   flags, bit 0 for lazy neurons
+ *  12  int32   precision of the neurons
+ *  16  int32   input dimension
+ *  20  int32   dimension of the neurons
+ *  24  int32   projection dimension, 0 without a projection
+ *  28  int32   amount of layers
+ *  32  int64   projection seed
+ *  40  int32   amount of neurons
+ *  44  int32   amount of shaping functions
+ *  48  int64   offset of the shaping function ids, each a uint16 length followed by UTF-8 bytes
+ *  56  int64   offset of the layers, each an attribute, sample counter and amount of neurons,
+ *              followed by the function index and numShapes of each of its neurons
+ *  64  int64   offset of the normalized weight matrix of {@link CompiledNetwork}
+ *  72  int64   offset of the sum and shape vectors of each neuron
+ * </pre>
+ * Built-in shaping functions are identified by the name of their {@link Shapes} constant,
+ * custom functions by the id they are {@link #register(String, ShapingFunction) registered} with.
+ * <p>
+ * {@link #read(Path)} restores a network which continues training where the saved one stopped,
+ * except that its neurons compete with a fresh random stream. {@link #map(Path)} only loads the normalized weight matrix,
+ * so a process which only predicts neither reads the neuron states nor creates a neuron.
+ * The weights are bulk-copied from the mapped file onto the heap, since the scoring kernels work on arrays,
+ * so loading still costs one sequential read of the weight section, which grows with the size of the model.
+ *
+ * @author Clouke
+ * @since 19.10.2026 01:30
+ * © shape-network - All Rights Reserved
+ */
+public final class ModelSerializer {
+
+  static final int MAGIC = 'S' | 'N' << 8 | 'M' << 16 | 'S' << 24;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 80;
+  private static final int FLAG_LAZY = 1;
+  private static final int SEGMENT_DOUBLES = 1 << 27;
+
+  private final Map<String, ShapingFunction> functions = new HashMap<>();
+  private final Map<ShapingFunction, String> ids = new IdentityHashMap<>();
+
+  /**
+   * Registers a custom shaping function, which must be registered with the same id when the model is read
+   *
+   * @param id The id of the function
+   * @param function The shaping function
+   * @return Returns this serializer for chaining
+   * @throws IllegalArgumentException If the id is taken, or the function is built-in or already registered
+   */
+  public ModelSerializer register(String id, ShapingFunction function) {
+    Objects.requireNonNull(id, "Id cannot be null");
+    Objects.requireNonNull(function, "Function cannot be null");
+    if (id.isEmpty() || id.getBytes(StandardCharsets.UTF_8).length > 0xFFFF)
+      throw new IllegalArgumentException("Id must hold between 1 and 65535 bytes");
+    if (Shapes.of(function) != null)
+      throw new IllegalArgumentException("Built-in shaping functions are identified by their shape");
+    if (shape(id) != null || functions.containsKey(id))
+      throw new IllegalArgumentException("Id " + id + " is already taken");
+    if (ids.containsKey(function))
+      throw new IllegalArgumentException("Function is already registered as " + ids.get(function));
+
+    functions.put(id, function);
+    ids.put(function, id);
+    return this;
+  }
+
+  private static Shapes shape(String id) {
+    for (Shapes shape : Shapes.values())
+      if (shape.name().equals(id))
+        return shape;
+    return null;
+  }
+
+  private String idOf(ShapingFunction function) {
+    Shapes shape = Shapes.of(function);
+    if (shape != null)
+      return shape.name();
+
+    String id = ids.get(function);
+    if (id == null)
+      throw new IllegalStateException("Shaping function " + function + " is not registered");
+    return id;
+  }
+
+  /**
+   * Saves the given network into the given file. The network may not be fed while it is saved.
+   *
+   * @param network The network to save
+   * @param path The file to write
+   * @throws IOException If the file could not be written
+   * @throws IllegalStateException If the network is not initialized, holds layers other than {@link PartitionLayer}s,
+   * or a custom shaping function is not registered
+   */
+  public void write(ShapingNetwork network, Path path) throws IOException {
+    if (!network.initialized())
+      throw new IllegalStateException("Network is not initialized");
+
+    List<PartitionLayer> layers = new ArrayList<>(network.layers.size());
+    for (Layer layer : network.layers) {
+      if (!(layer instanceof PartitionLayer))
+        throw new IllegalStateException("Only partition layers can be saved");
+      layers.add((PartitionLayer) layer);
+    }
+
+    CompiledNetwork compiled = network.compile();
+    int dimension = compiled.dimension();
+    int neurons = compiled.neurons();
+    RandomProjection projection = network.projection();
+
+    Map<ShapingFunction, Integer> table = new LinkedHashMap<>();
+    List<byte[]> encoded = new ArrayList<>();
+    long tableBytes = 0;
+    for (PartitionLayer layer : layers) {
+      for (Neuron neuron : layer.neurons()) {
+        if (table.containsKey(neuron.shapingFunction()))
+          continue;
+
+        byte[] id = idOf(neuron.shapingFunction()).getBytes(StandardCharsets.UTF_8);
+        table.put(neuron.shapingFunction(), table.size());
+        encoded.add(id);
+        tableBytes += Short.BYTES + id.length;
+      }
+    }
+
+    long tableOffset = HEADER_BYTES;
+    long layoutOffset = tableOffset + tableBytes;
+    long weightsOffset = align(layoutOffset + layers.size() * 3L * Integer.BYTES + neurons * 2L * Integer.BYTES);
+    long stateOffset = weightsOffset + (long) neurons * dimension * Double.BYTES;
+
+    try (Output out = new Output(path)) {
+      out.putInt(MAGIC)
+        .putInt(VERSION)
+        .putInt(network.lazy() ? FLAG_LAZY : 0)
+        .putInt(network.precision().ordinal())
+        .putInt(projection != null ? projection.inputDimension() : dimension)
+        .putInt(dimension)
+        .putInt(projection != null ? projection.outputDimension() : 0)
+        .putInt(layers.size())
+        .putLong(projection != null ? projection.seed() : 0L)
+        .putInt(neurons)
+        .putInt(table.size())
+        .putLong(tableOffset)
+        .putLong(layoutOffset)
+        .putLong(weightsOffset)
+        .putLong(stateOffset);
+
+      for (byte[] id : encoded) {
+        out.putShort((short) id.length);
+        out.put(id);
+      }
+
+      for (PartitionLayer layer : layers) {
+        out.putInt(layer.attribute())
+          .putInt(layer.samples())
+          .putInt(layer.neurons().size());
+        for (Neuron neuron : layer.neurons())
+          out.putInt(table.get(neuron.shapingFunction()))
+            .putInt(neuron.numShapes());
+      }
+      out.padTo(weightsOffset);
+
+      double[] row = new double[dimension];
+      for (int r = 0; r < neurons; r++) {
+        compiled.row(r, row, 0);
+        out.putDoubles(row);
+      }
+
+      for (PartitionLayer layer : layers) {
+        for (Neuron neuron : layer.neurons()) {
+          ContextVector shape = neuron.shapeVector(); // materializes a lazy neuron before its sum is read
+          ContextVector sum = neuron.sumVector();
+          if (sum.dimension() != dimension || shape.dimension() != dimension)
+            throw new IllegalStateException("Dimension of all neurons must be equal");
+          out.putDoubles(sum.values(), dimension);
+          out.putDoubles(shape.values(), dimension);
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads a saved network, which can continue training
+   *
+   * @param path The model file
+   * @return Returns the restored network
+   * @throws IOException If the file could not be read
+   * @throws IllegalStateException If the file is not a model, or refers to a custom shaping function which is not registered
+   */
+  public ShapingNetwork read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      Model model = Model.of(channel, this);
+      List<ComposedLayer> composers = new ArrayList<>(model.attributes.length);
+      int neuron = 0;
+      for (int l = 0; l < model.attributes.length; l++) {
+        Map<Integer, ShapingFunction> layerFunctions = new LinkedHashMap<>();
+        for (int i = 0; i < model.counts[l]; i++)
+          layerFunctions.put(i, model.functions[model.functionIndices[neuron++]]);
+        composers.add(new ComposedLayer(model.attributes[l], layerFunctions));
+      }
+
+      ShapingNetwork network = new ShapingNetwork(composers, model.lazy, model.precision, false, model.projectionDimension, model.projectionSeed);
+      network.initialize(model.input);
+
+      MappedDoubles states = new MappedDoubles(channel, model.stateOffset, (long) model.neurons * model.dimension * 2);
+      try {
+        double[] sum = new double[model.dimension];
+        double[] shape = new double[model.dimension];
+        long index = 0;
+        neuron = 0;
+        for (int l = 0; l < model.attributes.length; l++) {
+          PartitionLayer layer = (PartitionLayer) network.layers.get(l);
+          layer.advance(model.samples[l]);
+          for (Neuron node : layer.neurons()) {
+            states.get(index, sum, 0, model.dimension);
+            states.get(index + model.dimension, shape, 0, model.dimension);
+            node.restore(sum, shape, model.numShapes[neuron++]);
+            index += 2L * model.dimension;
+          }
+        }
+      } finally {
+        states.release();
+      }
+      return network;
+    }
+  }
+
+  /**
+   * Loads the compiled weights of a saved network for predictions only, without restoring its neurons.
+   * The predictions equal those of {@link ShapingNetwork#compile()} on the saved network.
+   * The weights are copied onto the heap with a bulk copy per layer, after which the file is unmapped.
+   *
+   * @param path The model file
+   * @return Returns the compiled network, or a predictor projecting each input first when the saved network projects its inputs
+   * @throws IOException If the file could not be read
+   * @throws IllegalStateException If the file is not a model, or refers to a custom shaping function which is not registered
+   */
+  public Predictor map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      Model model = Model.of(channel, this);
+      int[] offsets = new int[model.attributes.length + 1];
+      for (int l = 0; l < model.attributes.length; l++)
+        offsets[l + 1] = offsets[l] + model.counts[l];
+
+      double[][] blocks = new double[model.attributes.length][];
+      MappedDoubles mapped = new MappedDoubles(channel, model.weightsOffset, (long) model.neurons * model.dimension);
+      try {
+        for (int l = 0; l < blocks.length; l++) {
+          blocks[l] = new double[Math.multiplyExact(model.counts[l], model.dimension)];
+          mapped.get((long) offsets[l] * model.dimension, blocks[l], 0, blocks[l].length);
+        }
+      } finally {
+        mapped.release();
+      }
+
+      CompiledNetwork compiled = new CompiledNetwork(model.dimension, model.attributes, offsets, blocks);
+      if (model.projectionDimension == 0)
+        return compiled;
+
+      RandomProjection projection = new RandomProjection(model.input, model.projectionDimension, model.projectionSeed);
+      return new Predictor() {
+        @Override
+        public double[] predict(ContextVector vector) {
+          return compiled.predict(projection.project(vector));
+        }
+
+        @Override
+        public double[][] predict(double[] inputs, int rows) {
+          return compiled.predict(projection.project(inputs, rows), rows);
+        }
+
+        @Override
+        public double[][] predict(RowMatrix matrix) {
+          return compiled.predict(projection.project(matrix), matrix.rows());
+        }
+      };
+    }
+  }
+
+  private static long align(long position) {
+    return (position + Double.BYTES - 1) & -Double.BYTES;
+  }
+
+  /**
+   * The header, shaping functions and layers of a model file
+   */
+  private static final class Model {
+
+    private boolean lazy;
+    private Precision precision;
+    private int input;
+    private int dimension;
+    private int projectionDimension;
+    private long projectionSeed;
+    private int neurons;
+    private long weightsOffset;
+    private long stateOffset;
+    private ShapingFunction[] functions;
+    private int[] attributes;
+    private int[] samples;
+    private int[] counts;
+    private int[] functionIndices;
+    private int[] numShapes;
+
+    private static Model of(FileChannel channel, ModelSerializer serializer) throws IOException {
+      ByteBuffer header = read(channel, 0, HEADER_BYTES);
+      if (header.getInt() != MAGIC)
+        throw new IllegalStateException("File is not a model");
+      int version = header.getInt();
+      if (version < 1 || version > VERSION)
+        throw new IllegalStateException("Unsupported model version " + version);
+
+      Model model = new Model();
+      model.lazy = (header.getInt() & FLAG_LAZY) != 0;
+      int precision = header.getInt();
+      if (precision < 0 || precision >= Precision.values().length)
+        throw new IllegalStateException("Model holds an unknown precision");
+      model.precision = Precision.values()[precision];
+      model.input = header.getInt();
+      model.dimension = header.getInt();
+      model.projectionDimension = header.getInt();
+      int layers = header.getInt();
+      model.projectionSeed = header.getLong();
+      model.neurons = header.getInt();
+      int functions = header.getInt();
+      long tableOffset = header.getLong();
+      long layoutOffset = header.getLong();
+      model.weightsOffset = header.getLong();
+      model.stateOffset = header.getLong();
+
+      if (model.dimension <= 0 || model.input <= 0 || layers < 0 || model.neurons < 0 || functions < 0
+        || tableOffset < HEADER_BYTES || layoutOffset < tableOffset
+        || !ordered(channel.size(), layoutOffset, layers, model.neurons, model.dimension, model.weightsOffset, model.stateOffset)
+        || model.weightsOffset - tableOffset > Integer.MAX_VALUE)
+        throw new IllegalStateException("Model is corrupt or truncated");
+
+      ByteBuffer layout = read(channel, tableOffset, (int) (model.weightsOffset - tableOffset));
+      model.functions = new ShapingFunction[functions];
+      for (int f = 0; f < functions; f++) {
+        byte[] id = new byte[layout.getShort() & 0xFFFF];
+        layout.get(id);
+        model.functions[f] = serializer.functionOf(new String(id, StandardCharsets.UTF_8));
+      }
+
+      model.attributes = new int[layers];
+      model.samples = new int[layers];
+      model.counts = new int[layers];
+      model.functionIndices = new int[model.neurons];
+      model.numShapes = new int[model.neurons];
+      int neuron = 0;
+      for (int l = 0; l < layers; l++) {
+        model.attributes[l] = layout.getInt();
+        model.samples[l] = layout.getInt();
+        model.counts[l] = layout.getInt();
+        if (model.counts[l] <= 0 || neuron + model.counts[l] > model.neurons)
+          throw new IllegalStateException("Model is corrupt or truncated");
+        for (int i = 0; i < model.counts[l]; i++, neuron++) {
+          model.functionIndices[neuron] = layout.getInt();
+          model.numShapes[neuron] = layout.getInt();
+          if (model.functionIndices[neuron] < 0 || model.functionIndices[neuron] >= functions)
+            throw new IllegalStateException("Model is corrupt or truncated");
+        }
+      }
+      if (neuron != model.neurons)
+        throw new IllegalStateException("Model is corrupt or truncated");
+      return model;
+    }
+
+    /**
+     * Checks that the layout, weights and state sections follow each other without overlapping,
+     * that both double sections are aligned, and that the state section ends within the file
+     */
+    private static boolean ordered(long fileSize, long layoutOffset, int layers, int neurons, int dimension,
+                                   long weightsOffset, long stateOffset) {
+      try {
+        long layoutEnd = Math.addExact(layoutOffset, layers * 3L * Integer.BYTES + neurons * 2L * Integer.BYTES);
+        long weightBytes = Math.multiplyExact((long) neurons * dimension, (long) Double.BYTES);
+        return weightsOffset % Double.BYTES == 0 && stateOffset % Double.BYTES == 0
+          && weightsOffset >= layoutEnd
+          && stateOffset >= Math.addExact(weightsOffset, weightBytes)
+          && fileSize >= Math.addExact(stateOffset, Math.multiplyExact(weightBytes, 2L));
+      } catch (ArithmeticException e) {
+        return false; // sections which overflow cannot fit any file
+      }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int bytes) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+      while (buffer.hasRemaining())
+        if (channel.read(buffer, position + buffer.position()) < 0)
+          throw new IllegalStateException("Model is corrupt or truncated");
+      ((Buffer) buffer).flip();
+      return buffer;
+    }
+  }
+
+  private ShapingFunction functionOf(String id) {
+    Shapes shape = shape(id);
+    if (shape != null)
+      return shape.function();
+
+    ShapingFunction function = functions.get(id);
+    if (function == null)
+      throw new IllegalStateException("Shaping function " + id + " is not registered");
+    return function;
+  }
+
+  /**
+   * A run of doubles in a file, mapped in segments so it may exceed 2 GiB
+   */
+  private static final class MappedDoubles {
+
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] segments;
+
+    private MappedDoubles(FileChannel channel, long position, long doubles) throws IOException {
+      int count = (int) ((doubles + SEGMENT_DOUBLES - 1) / SEGMENT_DOUBLES);
+      this.mappings = new MappedByteBuffer[count];
+      this.segments = new DoubleBuffer[count];
+      for (int s = 0; s < count; s++) {
+        long size = Math.min(SEGMENT_DOUBLES, doubles - (long) s * SEGMENT_DOUBLES) * Double.BYTES;
+        mappings[s] = channel.map(FileChannel.MapMode.READ_ONLY, position + (long) s * SEGMENT_DOUBLES * Double.BYTES, size);
+        segments[s] = mappings[s].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+      }
+    }
+
+    private void get(long index, double[] destination, int offset, int length) {
+      while (length > 0) {
+        int segment = (int) (index / SEGMENT_DOUBLES);
+        int position = (int) (index % SEGMENT_DOUBLES);
+        int n = Math.min(length, SEGMENT_DOUBLES - position);
+        DoubleBuffer view = segments[segment].duplicate();
+        ((Buffer) view).position(position);
+        view.get(destination, offset, n);
+        index += n;
+        offset += n;
+        length -= n;
+      }
+    }
+
+    private void release() {
+      for (MappedByteBuffer mapping : mappings)
+        if (mapping != null)
+          OffHeapArena.Release.release(mapping);
+    }
+  }
+
+  /**
+   * Writes the little-endian sections of a model file through a staging buffer
+   */
+  private static final class Output implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    private long flushed;
+
+    private Output(Path path) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Output ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes)
+        flush();
+      return this;
+    }
+
+    private Output putShort(short value) throws IOException {
+      ensure(Short.BYTES).buffer.putShort(value);
+      return this;
+    }
+
+    private Output putInt(int value) throws IOException {
+      ensure(Integer.BYTES).buffer.putInt(value);
+      return this;
+    }
+
+    private Output putLong(long value) throws IOException {
+      ensure(Long.BYTES).buffer.putLong(value);
+      return this;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+      for (int from = 0; from < bytes.length; ) {
+        int n = Math.min(bytes.length - from, ensure(1).buffer.remaining());
+        buffer.put(bytes, from, n);
+        from += n;
+      }
+    }
+
+    private void putDoubles(double[] values) throws IOException {
+      putDoubles(values, values.length);
+    }
+
+    private void putDoubles(double[] values, int length) throws IOException {
+      for (int i = 0; i < length; i++)
+        ensure(Double.BYTES).buffer.putDouble(values[i]);
+    }
+
+    private void padTo(long position) throws IOException {
+      while (flushed + buffer.position() < position)
+        ensure(1).buffer.put((byte) 0);
+    }
+
+    private void flush() throws IOException {
+      ((Buffer) buffer).flip();
+      while (buffer.hasRemaining())
+        flushed += channel.write(buffer);
+      buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+        channel.force(false);
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+}
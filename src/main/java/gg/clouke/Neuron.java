@@ -9,18 +9,43 @@ import java.util.Random;
  */
 public class Neuron {
 
-  private final ContextVector sumVector = ContextVector.newVector();
-  private ContextVector shapeVector = ContextVector.newVector();
+  private final NeuronState state;
   private int numShapes = 0;
 
   private final ShapingFunction shapingFunction;
+  private final Shapes builtIn;
+  private final boolean lazy;
+  private ContextVector lastInput;
+  private int lastN;
+  private boolean dirty;
+  private double shapeMagnitude = -1.0;
 
   public Neuron(int inputSize, ShapingFunction shapingFunction) {
+    this(inputSize, shapingFunction, false);
+  }
+
+  public Neuron(int inputSize, ShapingFunction shapingFunction, boolean lazy) {
+    this(inputSize, shapingFunction, lazy, Precision.DOUBLE);
+  }
+
+  /**
+   * @param inputSize The amount of input nodes
+   * @param shapingFunction The shaping function of this neuron
+   * @param lazy Whether the shape vector is only computed once it is read after a change,
+   *             which requires the shaping function to be a {@link LazyShapingFunction}
+   * @param precision The precision to store the sum and shape vector in
+   */
+  public Neuron(int inputSize, ShapingFunction shapingFunction, boolean lazy, Precision precision) {
+    this(inputSize, shapingFunction, lazy, NeuronState.of(precision, inputSize));
+  }
+
+  Neuron(int inputSize, ShapingFunction shapingFunction, boolean lazy, NeuronState state) {
     this.shapingFunction = shapingFunction;
-    for (int i = 0; i < inputSize; i++) {
-      sumVector.addValueToVector(0.0);
-      shapeVector.addValueToVector(0.0);
-    }
+    this.builtIn = Shapes.of(shapingFunction);
+    this.lazy = lazy && shapingFunction instanceof LazyShapingFunction;
+    this.state = state;
+    if (this.lazy)
+      this.lastInput = ContextVector.withCapacity(inputSize);
   }
 
   /**
@@ -29,11 +54,15 @@ public class Neuron {
    * @param random The random instance to use
    */
   public void randomize(Random random) {
-    for (int i = 0; i < sumVector.dimension(); i++)
-      sumVector.modify(
-        i,
-        random.nextDouble() * 2.0 - 1.0
-      );
+    state.acquire();
+    try {
+      ContextVector sumVector = state.sum();
+      double[] sum = sumVector.values();
+      for (int i = 0; i < sumVector.dimension(); i++)
+        sum[i] = random.nextDouble() * 2.0 - 1.0;
+    } finally {
+      state.release();
+    }
   }
 
   /**
@@ -43,48 +72,195 @@ public class Neuron {
    * @param noiseRate The noise rate to use
    */
   public void noisyShape(Random random, double noiseRate) {
-    for (int i = 0; i < shapeVector.dimension(); i++) {
-      double noise = random.nextDouble() * 2.0 - 1.0;
-      boolean sign = random.nextBoolean();
-      shapeVector.modify(
-        i,
-        shapeVector.get(i) + noiseRate * noise * (sign ? 1 : -1)
-      );
+    materialize();
+    state.acquire();
+    try {
+      ContextVector shapeVector = state.shape();
+      double[] shape = shapeVector.values();
+      for (int i = 0; i < shapeVector.dimension(); i++) {
+        double noise = random.nextDouble() * 2.0 - 1.0;
+        boolean sign = random.nextBoolean();
+        shape[i] += noiseRate * noise * (sign ? 1 : -1);
+      }
+    } finally {
+      state.release();
     }
+    shapeMagnitude = -1.0;
   }
 
   /**
-   * Shapes the weights of this neuron
+   * Shapes the weights of this neuron, in place whenever
+   * the shaping function is an {@link InPlaceShapingFunction}.
+   * In lazy mode only the statistics are updated, and the shape vector is marked dirty.
    *
    * @param y The context vector to shape the weights with
    * @param n The amount of times this neuron has been shaped
    */
   public void shape(ContextVector y, int n) {
-    shapeVector = shapingFunction.apply(
-      this,
-      n,
-      y
-    );
+    if (!lazy && builtIn != null && state.shapeInPlace(builtIn, n, y)) {
+      shapeMagnitude = -1.0;
+      numShapes++;
+      return;
+    }
+
+    state.acquire();
+    try {
+      if (lazy) {
+        ((LazyShapingFunction) shapingFunction).accumulate(this, n, y);
+        remember(y, n);
+      } else if (shapingFunction instanceof InPlaceShapingFunction)
+        ((InPlaceShapingFunction) shapingFunction).shapeInto(
+          this,
+          n,
+          y,
+          state.shape()
+        );
+      else
+        state.replaceShape(shapingFunction.apply(
+          this,
+          n,
+          y
+        ));
+    } finally {
+      state.release();
+    }
 
+    shapeMagnitude = -1.0;
     numShapes++;
   }
 
   /**
-   * Gets the shape vector of this neuron
+   * Absorbs statistics accumulated elsewhere, as if this neuron had been shaped with each of their samples.
+   * The added sum must have been accumulated by the same shaping function, starting from zero.
+   *
+   * @param sum The sum of the absorbed samples
+   * @param count The amount of absorbed samples
+   * @param last The last absorbed sample
+   * @param n The amount of times the layer had been shaped before the last sample
+   */
+  void absorb(ContextVector sum, int count, ContextVector last, int n) {
+    state.acquire();
+    try {
+      state.sum().merge(sum);
+      if (lazy)
+        remember(last, n);
+      else
+        ((LazyShapingFunction) shapingFunction).materialize(this, n, last, state.shape());
+    } finally {
+      state.release();
+    }
+
+    shapeMagnitude = -1.0;
+    numShapes += count;
+  }
+
+  /**
+   * Restores the state of a saved neuron
+   *
+   * @param sum The saved sum vector
+   * @param shape The saved, materialized shape vector
+   * @param numShapes The amount of times the saved neuron had been shaped
+   */
+  void restore(double[] sum, double[] shape, int numShapes) {
+    state.acquire();
+    try {
+      state.sum().assign(sum, 0, sum.length);
+      state.shape().assign(shape, 0, shape.length);
+    } finally {
+      state.release();
+    }
+
+    this.numShapes = numShapes;
+    shapeMagnitude = -1.0;
+    dirty = false;
+  }
+
+  private void remember(ContextVector y, int n) {
+    if (y.sparse())
+      lastInput = y.copy(); // keeps the cost proportional to the non-zero values
+    else {
+      if (lastInput.sparse())
+        lastInput = ContextVector.withCapacity(y.dimension());
+      lastInput.assign(y);
+    }
+    lastN = n;
+    dirty = true;
+  }
+
+  /**
+   * Performs cosine similarity of the given vector on the shape vector of this neuron,
+   * without widening it when it is stored in a narrower {@link Precision}
+   *
+   * @param x The vector to perform cosine similarity with
+   * @return Returns the cosine similarity
+   */
+  public double cosine(ContextVector x) {
+    materialize();
+    if (!x.sparse())
+      return state.cosine(x);
+
+    SparseContextVector sparse = (SparseContextVector) x;
+    int[] indices = sparse.indices();
+    double[] data = sparse.data();
+    double dotProduct = 0.0;
+    for (int k = 0; k < sparse.nonZeros(); k++)
+      dotProduct += data[k] * state.shapeAt(indices[k]);
+
+    double magnitudeX = sparse.magnitude();
+    double magnitudeY = shapeMagnitude();
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  /**
+   * Gets the euclidean length of the shape vector, which is cached until the neuron is shaped again.
+   * Modifying the vector returned by {@link #shapeVector()} directly does not invalidate the cache.
+   *
+   * @return Returns the euclidean length of the shape vector
+   */
+  public double shapeMagnitude() {
+    materialize();
+    if (shapeMagnitude < 0)
+      shapeMagnitude = state.shape().magnitude();
+    return shapeMagnitude;
+  }
+
+  /**
+   * Gets the shape vector of this neuron, materializing it first when it is dirty.
+   * When stored in a narrower {@link Precision} outside of shaping, a widened copy is returned.
    *
    * @return Returns the shape vector of this neuron
    */
   public ContextVector shapeVector() {
-    return shapeVector;
+    materialize();
+    return state.shape();
+  }
+
+  private void materialize() {
+    if (!dirty)
+      return;
+
+    state.acquire();
+    try {
+      ((LazyShapingFunction) shapingFunction).materialize(this, lastN, lastInput, state.shape());
+    } finally {
+      state.release();
+    }
+    shapeMagnitude = -1.0;
+    dirty = false;
   }
 
   /**
-   * Gets the sum vector of this neuron
+   * Gets the sum vector of this neuron.
+   * When stored in a narrower {@link Precision} outside of shaping, a widened copy is returned.
    *
    * @return Returns the sum vector of this neuron
    */
   public ContextVector sumVector() {
-    return sumVector;
+    return state.sum();
   }
 
   /**
@@ -105,4 +281,31 @@ public class Neuron {
     return numShapes;
   }
 
+  /**
+   * Gets whether the shape vector of this neuron is computed on demand
+   *
+   * @return Returns whether this neuron is lazy
+   */
+  public boolean lazy() {
+    return lazy;
+  }
+
+  /**
+   * Gets whether the shape vector of this neuron is out of date with its statistics
+   *
+   * @return Returns whether this neuron is dirty
+   */
+  public boolean dirty() {
+    return dirty;
+  }
+
+  /**
+   * Gets the precision in which this neuron stores its vectors
+   *
+   * @return Returns the precision of this neuron
+   */
+  public Precision precision() {
+    return state.precision();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package gg.clouke;
+
+/**
+ * The storage of the sum and shape vector of a {@link Neuron}.
+ * <p>
+ * Narrowed storages only hand out working vectors between {@link #acquire()} and {@link #release()},
+ * outside of which {@link #sum()} and {@link #shape()} return detached copies.
+ *
+ * @author Clouke
+ * @since 18.10.2026 15:31
+ * © shape-network - All Rights Reserved
+ */
+abstract class NeuronState {
+
+  private static final ThreadLocal<ContextVector[]> SCRATCH = ThreadLocal.withInitial(
+    () -> new ContextVector[] {
+      ContextVector.newVector(),
+      ContextVector.newVector()
+    }
+  );
+
+  /**
+   * Creates a zeroed state in the given precision
+   *
+   * @param precision The precision to store the vectors in
+   * @param dimension The dimension of the vectors
+   * @return Returns the created state
+   */
+  static NeuronState of(Precision precision, int dimension) {
+    return of(precision, dimension, null);
+  }
+
+  /**
+   * Creates a zeroed state in the given precision, off the heap when an arena is given
+   *
+   * @param precision The precision to store the vectors in
+   * @param dimension The dimension of the vectors
+   * @param arena The arena to allocate the vectors in, or null to keep them on the heap
+   * @return Returns the created state
+   */
+  static NeuronState of(Precision precision, int dimension, OffHeapArena arena) {
+    if (arena != null) {
+      if (precision != Precision.DOUBLE)
+        throw new IllegalArgumentException("Off-heap storage only supports double precision");
+      return new OffHeapNeuronState(arena, dimension);
+    }
+
+    switch (precision) {
+      case FLOAT32:
+        return new FloatNeuronState(dimension, false);
+      case FLOAT32_COMPENSATED:
+        return new FloatNeuronState(dimension, true);
+      default:
+        return new DoubleNeuronState(dimension);
+    }
+  }
+
+  /**
+   * Gets the per-thread working vectors for the sum and the shape,
+   * which narrowed and off-heap storages stage their vectors through while shaping
+   *
+   * @return Returns the working vectors of the current thread
+   */
+  static ContextVector[] scratch() {
+    return SCRATCH.get();
+  }
+
+  /**
+   * Widens the stored vectors into working vectors
+   */
+  void acquire() {}
+
+  /**
+   * Narrows the working vectors back into the storage
+   */
+  void release() {}
+
+  /**
+   * Gets the sum vector
+   *
+   * @return Returns the sum vector
+   */
+  abstract ContextVector sum();
+
+  /**
+   * Gets the shape vector
+   *
+   * @return Returns the shape vector
+   */
+  abstract ContextVector shape();
+
+  /**
+   * Replaces the shape vector with the given vector
+   *
+   * @param shape The new shape vector
+   */
+  abstract void replaceShape(ContextVector shape);
+
+  /**
+   * Shapes the stored vectors with the given built-in shape where they are stored, without staging them
+   *
+   * @param shape The shape to shape the vectors with
+   * @param n The amount of times the neuron has been shaped
+   * @param w The context vector to shape the neuron with
+   * @return Returns whether the vectors were shaped, or false when this storage stages its vectors instead
+   */
+  boolean shapeInPlace(Shapes shape, int n, ContextVector w) {
+    return false;
+  }
+
+  /**
+   * Gets a single value of the stored shape vector
+   *
+   * @param index The index of the value
+   * @return Returns the value at the given index
+   */
+  abstract double shapeAt(int index);
+
+  /**
+   * Performs cosine similarity of the given vector on the stored shape vector
+   *
+   * @param x The vector to perform cosine similarity with
+   * @return Returns the cosine similarity
+   */
+  abstract double cosine(ContextVector x);
+
+  /**
+   * Gets the precision of this state
+   *
+   * @return Returns the precision of this state
+   */
+  abstract Precision precision();
+
+}
@@ -0,0 +1,128 @@
+package gg.clouke;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from ASCII bytes, without creating a {@link String} per field.
+ * <p>
+ * Numbers whose significant digits form an integer of at most 2<sup>53</sup> and whose decimal exponent is within 22
+ * are exactly representable as a mantissa and a power of ten, so a single multiplication or division rounds them correctly.
+ * Every other number falls back to {@link Double#parseDouble(String)}, so the result always equals it.
+ *
+ * @author Clouke
+ * @since 19.10.2026 00:20
+ * © shape-network - All Rights Reserved
+ */
+final class NumberParser {
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+    1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final int MAX_DIGITS = 18;
+  private static final long MAX_MANTISSA = 1L << 53;
+
+  private NumberParser() {}
+
+  /**
+   * Parses the number between the given bytes, ignoring surrounding spaces
+   *
+   * @param bytes The bytes holding the number
+   * @param from The index of the first byte
+   * @param to The index after the last byte
+   * @return Returns the parsed number
+   * @throws NumberFormatException If the bytes do not hold a number
+   */
+  static double parse(byte[] bytes, int from, int to) {
+    while (from < to && bytes[from] == ' ')
+      from++;
+    while (to > from && bytes[to - 1] == ' ')
+      to--;
+    if (from == to)
+      throw new NumberFormatException("Empty number");
+
+    int i = from;
+    boolean negative = bytes[i] == '-';
+    if (negative || bytes[i] == '+')
+      i++;
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean any = false;
+    boolean exact = true;
+    for (; i < to && isDigit(bytes[i]); i++) {
+      any = true;
+      if (digits < MAX_DIGITS) {
+        mantissa = mantissa * 10 + (bytes[i] - '0');
+        if (mantissa != 0)
+          digits++;
+      } else {
+        exponent++;
+        exact &= bytes[i] == '0';
+      }
+    }
+
+    if (i < to && bytes[i] == '.') {
+      for (i++; i < to && isDigit(bytes[i]); i++) {
+        any = true;
+        if (digits < MAX_DIGITS) {
+          mantissa = mantissa * 10 + (bytes[i] - '0');
+          if (mantissa != 0)
+            digits++;
+          exponent--;
+        } else
+          exact &= bytes[i] == '0';
+      }
+    }
+
+    if (any && i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      int j = i + 1;
+      boolean negativeExponent = j < to && bytes[j] == '-';
+      if (j < to && (negativeExponent || bytes[j] == '+'))
+        j++;
+
+      int value = 0;
+      boolean exponentDigits = false;
+      for (; j < to && isDigit(bytes[j]); j++) {
+        exponentDigits = true;
+        if (value < 10_000)
+          value = value * 10 + (bytes[j] - '0');
+      }
+      if (exponentDigits) {
+        exponent += negativeExponent ? -value : value;
+        i = j;
+      }
+    }
+
+    if (!any || i != to || !exact || mantissa > MAX_MANTISSA || exponent < -22 || exponent > 22)
+      return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+
+    double value = exponent < 0
+      ? mantissa / POWERS_OF_TEN[-exponent]
+      : mantissa * POWERS_OF_TEN[exponent];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses the non-negative integer between the given bytes, ignoring surrounding spaces.
+   * Integral decimals such as {@code 3.0} are accepted as well.
+   *
+   * @param bytes The bytes holding the integer
+   * @param from The index of the first byte
+   * @param to The index after the last byte
+   * @return Returns the parsed integer
+   * @throws NumberFormatException If the bytes do not hold a non-negative integer
+   */
+  static int parseIndex(byte[] bytes, int from, int to) {
+    double value = parse(bytes, from, to);
+    if (!(value >= 0 && value <= Integer.MAX_VALUE) || value != Math.rint(value))
+      throw new NumberFormatException("Not a non-negative integer: " + value);
+    return (int) value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+}
@@ -0,0 +1,181 @@
+package gg.clouke;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the numeric state of a network in a few large direct memory regions, outside of the heap.
+ * <p>
+ * Slices are handed out with a bump pointer, and the regions are released all at once
+ * by {@link #close()}, after which every slice is unusable.
+ *
+ * @author Clouke
+ * @since 18.10.2026 18:02
+ * © shape-network - All Rights Reserved
+ */
+public final class OffHeapArena implements AutoCloseable {
+
+  /**
+   * The default size of a region, a slice larger than this gets a region of its own
+   */
+  public static final int DEFAULT_REGION_BYTES = 1 << 28;
+
+  private final int regionBytes;
+  private final List<ByteBuffer> regions = new ArrayList<>();
+  private ByteBuffer current;
+  private long allocated;
+  private volatile boolean closed;
+
+  public OffHeapArena() {
+    this(DEFAULT_REGION_BYTES);
+  }
+
+  /**
+   * @param regionBytes The size of each region in bytes
+   */
+  public OffHeapArena(int regionBytes) {
+    if (regionBytes < Double.BYTES)
+      throw new IllegalArgumentException("Region must hold at least one value");
+    this.regionBytes = regionBytes - regionBytes % Double.BYTES;
+  }
+
+  /**
+   * Allocates a zeroed slice of the given amount of doubles
+   *
+   * @param doubles The amount of doubles
+   * @return Returns the allocated slice
+   * @throws IllegalStateException If this arena is closed
+   */
+  public synchronized DoubleBuffer allocate(int doubles) {
+    ensureOpen();
+    if (doubles > Integer.MAX_VALUE / Double.BYTES)
+      throw new IllegalArgumentException("Slice cannot exceed 2 GiB");
+
+    int bytes = doubles * Double.BYTES;
+    if (bytes > regionBytes) {
+      ByteBuffer region = region(bytes);
+      allocated += bytes;
+      return region.asDoubleBuffer();
+    }
+
+    if (current == null || current.remaining() < bytes)
+      current = region(regionBytes);
+
+    ByteBuffer slice = current.slice().order(ByteOrder.nativeOrder());
+    ((Buffer) slice).limit(bytes);
+    ((Buffer) current).position(current.position() + bytes);
+    allocated += bytes;
+    return slice.asDoubleBuffer();
+  }
+
+  private ByteBuffer region(int bytes) {
+    ByteBuffer region = ByteBuffer.allocateDirect(bytes)
+      .order(ByteOrder.nativeOrder());
+    regions.add(region);
+    return region;
+  }
+
+  /**
+   * Gets the amount of bytes handed out by this arena
+   *
+   * @return Returns the allocated bytes
+   */
+  public synchronized long allocatedBytes() {
+    return allocated;
+  }
+
+  /**
+   * Gets the amount of bytes reserved in regions by this arena
+   *
+   * @return Returns the reserved bytes
+   */
+  public synchronized long reservedBytes() {
+    long reserved = 0;
+    for (ByteBuffer region : regions)
+      reserved += region.capacity();
+    return reserved;
+  }
+
+  /**
+   * Gets whether this arena has been closed
+   *
+   * @return Returns whether this arena has been closed
+   */
+  public boolean closed() {
+    return closed;
+  }
+
+  /**
+   * Throws if this arena has been closed, as reading released memory would crash the JVM
+   *
+   * @throws IllegalStateException If this arena is closed
+   */
+  public void ensureOpen() {
+    if (closed)
+      throw new IllegalStateException("Off-heap arena is closed");
+  }
+
+  /**
+   * Releases every region of this arena
+   */
+  @Override
+  public synchronized void close() {
+    if (closed)
+      return;
+
+    closed = true;
+    for (ByteBuffer region : regions)
+      Release.release(region);
+    regions.clear();
+    current = null;
+  }
+
+  /**
+   * Frees direct and mapped buffers eagerly, leaving them to the garbage collector when the JDK does not allow it
+   */
+  static final class Release {
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+      Object unsafe = null;
+      Method invokeCleaner = null;
+      try {
+        Class<?> type = Class.forName("sun.misc.Unsafe");
+        Field field = type.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+        invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class); // JDK 9+
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // JDK 8 is handled through the cleaner of the buffer itself
+      }
+      UNSAFE = unsafe;
+      INVOKE_CLEANER = invokeCleaner;
+    }
+
+    static void release(ByteBuffer buffer) {
+      try {
+        if (INVOKE_CLEANER != null) {
+          INVOKE_CLEANER.invoke(UNSAFE, buffer);
+          return;
+        }
+
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null)
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // left to the garbage collector
+      }
+    }
+  }
+
+}
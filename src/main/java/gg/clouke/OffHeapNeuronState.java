@@ -0,0 +1,141 @@
+package gg.clouke;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * A {@link NeuronState} storing its vectors in a slice of an {@link OffHeapArena},
+ * laid out as the sum vector followed by the shape vector.
+ * Scoring reads the slice directly, and so does eager shaping with the built-in {@link Shapes}.
+ * Custom shaping functions, lazy materialization and absorbed statistics stage the slice through the per-thread working vectors.
+ *
+ * @author Clouke
+ * @since 18.10.2026 18:02
+ * © shape-network - All Rights Reserved
+ */
+final class OffHeapNeuronState extends NeuronState {
+
+  private final OffHeapArena arena;
+  private final DoubleBuffer region;
+  private final int dimension;
+
+  private ContextVector workingSum;
+  private ContextVector workingShape;
+
+  OffHeapNeuronState(OffHeapArena arena, int dimension) {
+    this.arena = arena;
+    this.region = arena.allocate(dimension * 2);
+    this.dimension = dimension;
+  }
+
+  @Override
+  void acquire() {
+    ContextVector[] scratch = scratch();
+    workingSum = read(0, scratch[0]);
+    workingShape = read(dimension, scratch[1]);
+  }
+
+  @Override
+  void release() {
+    if (workingSum == null)
+      return;
+
+    write(workingSum, 0);
+    write(workingShape, dimension);
+    workingSum = null;
+    workingShape = null;
+  }
+
+  @Override
+  ContextVector sum() {
+    return workingSum != null
+      ? workingSum
+      : read(0, ContextVector.withCapacity(dimension));
+  }
+
+  @Override
+  ContextVector shape() {
+    return workingShape != null
+      ? workingShape
+      : read(dimension, ContextVector.withCapacity(dimension));
+  }
+
+  @Override
+  void replaceShape(ContextVector shape) {
+    if (workingShape != null)
+      workingShape = shape;
+    else
+      write(shape, dimension);
+  }
+
+  @Override
+  boolean shapeInPlace(Shapes shape, int n, ContextVector w) {
+    if (workingSum != null || w.dimension() != dimension)
+      return false;
+
+    arena.ensureOpen();
+    shape.shapeInto(region, dimension, n, w);
+    return true;
+  }
+
+  @Override
+  double shapeAt(int index) {
+    arena.ensureOpen();
+    if (index < 0 || index >= dimension)
+      throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for dimension " + dimension);
+    return region.get(dimension + index);
+  }
+
+  @Override
+  double cosine(ContextVector x) {
+    arena.ensureOpen();
+    if (dimension < x.dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
+
+    double[] a = x.values();
+    DoubleBuffer b = region;
+    double dotProduct = 0.0;
+    double normX = 0.0;
+    double normY = 0.0;
+
+    for (int i = 0; i < x.dimension(); i++) {
+      double xi = a[i];
+      double yi = b.get(dimension + i);
+      dotProduct += xi * yi;
+      normX += xi * xi;
+      normY += yi * yi;
+    }
+
+    double magnitudeX = Math.sqrt(normX);
+    double magnitudeY = Math.sqrt(normY);
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  @Override
+  Precision precision() {
+    return Precision.DOUBLE;
+  }
+
+  private ContextVector read(int offset, ContextVector into) {
+    arena.ensureOpen();
+    DoubleBuffer view = region.duplicate();
+    ((Buffer) view).position(offset); // Buffer keeps the call linkable on Java 8
+    view.get(into.resize(dimension).values(), 0, dimension);
+    return into;
+  }
+
+  private void write(ContextVector from, int offset) {
+    arena.ensureOpen();
+    if (from.dimension() != dimension)
+      throw new IllegalStateException("Dimension of off-heap vectors cannot change");
+
+    DoubleBuffer view = region.duplicate();
+    ((Buffer) view).position(offset); // Buffer keeps the call linkable on Java 8
+    view.put(from.values(), 0, dimension);
+  }
+
+}
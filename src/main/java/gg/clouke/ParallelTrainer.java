@@ -0,0 +1,329 @@
+package gg.clouke;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.SplittableRandom;
+
+/**
+ * Trains a {@link ShapingNetwork} on a batch of samples in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * Layers holding one neuron per shape are trained in parallel with each other, where each layer is shaped
+ * with its own samples in order, exactly as feeding them would. Their neurons end up bit for bit where sequential
+ * training leaves them, for MEAN, MIN and MAX as for every other shape, since each sum is accumulated
+ * in the same order as sequentially. Summing shards separately would round differently.
+ * <p>
+ * Layers with neurons sharing a shape are trained by splitting the batch into contiguous shards,
+ * accumulating the statistics of each shard into shard-local copies of the neurons,
+ * and reducing the shards into the network in order.
+ * Neurons sharing a shape within a layer compete for each sample, which is order-dependent:
+ * sequentially, a sample goes to the neuron closest to the shapes left by the samples before it.
+ * The shards route samples against the shapes of the network at the start of the batch instead,
+ * and pick neurons at random for as long as one of the competing neurons had never been shaped.
+ * Networks with custom shaping functions, or layers other than {@link PartitionLayer}s,
+ * are trained sequentially.
+ * <p>
+ * The network may not be fed or predicted from other threads while a batch is trained.
+ *
+ * @author Clouke
+ * @since 18.10.2026 22:14
+ * © shape-network - All Rights Reserved
+ */
+public final class ParallelTrainer {
+
+  private final ForkJoinPool pool;
+  private final int shards;
+
+  public ParallelTrainer() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ParallelTrainer(ForkJoinPool pool) {
+    this(pool, pool.getParallelism());
+  }
+
+  /**
+   * @param pool The pool to train the shards on
+   * @param shards The amount of shards to split each batch into
+   */
+  public ParallelTrainer(ForkJoinPool pool, int shards) {
+    if (shards <= 0)
+      throw new IllegalArgumentException("Shards must be positive");
+
+    this.pool = pool;
+    this.shards = shards;
+  }
+
+  /**
+   * Trains the given network on the given samples, as if each were fed in order
+   *
+   * @param network The network to train
+   * @param x The input rows
+   * @param y The targets, in the first column of each row
+   */
+  public void train(ShapingNetwork network, double[][] x, double[][] y) {
+    ContextVector[] inputs = new ContextVector[x.length];
+    int[] targets = new int[y.length];
+    for (int i = 0; i < x.length; i++)
+      inputs[i] = new ContextVector(x[i]);
+    for (int i = 0; i < y.length; i++)
+      targets[i] = (int) y[i][0];
+    train(network, inputs, targets);
+  }
+
+  /**
+   * Trains the given network on the given samples, as if each were fed in order
+   *
+   * @param network The network to train
+   * @param inputs The input vectors
+   * @param targets The target of each input vector
+   * @throws IllegalArgumentException If the amount of inputs and targets differ, or a target is out of bounds
+   */
+  public void train(ShapingNetwork network, ContextVector[] inputs, int[] targets) {
+    if (inputs.length != targets.length)
+      throw new IllegalArgumentException("Each input must have a target");
+    if (inputs.length == 0)
+      return;
+
+    network.initialize(inputs[0].dimension());
+    List<Layer> layers = network.layers;
+    for (int target : targets)
+      if (target >= layers.size())
+        throw new IllegalArgumentException("Target is out of bounds");
+
+    int numShards = Math.min(shards, inputs.length);
+    if (numShards == 1 || !shardable(layers)) {
+      for (int i = 0; i < inputs.length; i++)
+        network.feed(inputs[i], targets[i]);
+      return;
+    }
+
+    // layers without competing neurons are shaped in sample order, so only the others are sharded
+    boolean[] ordered = new boolean[layers.size()];
+    int[][] samples = new int[layers.size()][];
+    int[] counts = new int[layers.size()];
+    for (int target : targets)
+      for (int l : network.indicesOf(target))
+        counts[l]++;
+    for (int l = 0; l < layers.size(); l++) {
+      ordered[l] = ((PartitionLayer) layers.get(l)).partitions().length == 0;
+      samples[l] = new int[ordered[l] ? counts[l] : 0];
+      counts[l] = 0;
+    }
+    for (int i = 0; i < targets.length; i++)
+      for (int l : network.indicesOf(targets[i]))
+        if (ordered[l])
+          samples[l][counts[l]++] = i;
+
+    // each shard continues the sample counters of the layers where the shard before it stops
+    int[][] starts = new int[numShards][layers.size()];
+    for (int l = 0; l < layers.size(); l++)
+      starts[0][l] = ((PartitionLayer) layers.get(l)).samples();
+    for (int s = 1; s < numShards; s++) {
+      System.arraycopy(starts[s - 1], 0, starts[s], 0, layers.size());
+      for (int i = from(s - 1, numShards, inputs.length); i < from(s, numShards, inputs.length); i++)
+        for (int l : network.indicesOf(targets[i]))
+          starts[s][l]++;
+    }
+
+    // shards only read the competing neurons, which must not materialize concurrently
+    for (Layer layer : layers)
+      for (int[] group : ((PartitionLayer) layer).partitions())
+        for (int i : group)
+          ((PartitionLayer) layer).neurons().get(i).shapeMagnitude();
+
+    List<Callable<Shard>> tasks = new ArrayList<>(numShards);
+    for (int s = 0; s < numShards; s++) {
+      Shard shard = new Shard(network, inputs, targets, from(s, numShards, inputs.length), from(s + 1, numShards, inputs.length), starts[s], ordered, network.split());
+      tasks.add(() -> shard.train());
+    }
+    Shard[] trained = await(pool.invokeAll(tasks)).toArray(new Shard[0]);
+
+    List<Callable<Void>> reductions = new ArrayList<>(layers.size());
+    for (int l = 0; l < layers.size(); l++) {
+      int layer = l;
+      reductions.add(() -> {
+        if (ordered[layer])
+          replay(network, inputs, samples[layer], layer);
+        else
+          reduce(network, inputs, trained, layer);
+        return null;
+      });
+    }
+    await(pool.invokeAll(reductions));
+
+    network.record(network.project(inputs[inputs.length - 1]), inputs.length);
+  }
+
+  private static boolean shardable(List<Layer> layers) {
+    for (Layer layer : layers) {
+      if (!(layer instanceof PartitionLayer))
+        return false;
+      for (Neuron neuron : ((PartitionLayer) layer).neurons())
+        if (Shapes.of(neuron.shapingFunction()) == null)
+          return false;
+    }
+    return true;
+  }
+
+  private static int from(int shard, int numShards, int length) {
+    return (int) ((long) shard * length / numShards);
+  }
+
+  private static <T> List<T> await(List<Future<T>> futures) {
+    List<T> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> future : futures)
+        results.add(future.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Training was interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new IllegalStateException("Training failed", e.getCause());
+    }
+    return results;
+  }
+
+  /**
+   * Shapes a layer without competing neurons with its samples in order, exactly as feeding them would
+   */
+  private static void replay(ShapingNetwork network, ContextVector[] inputs, int[] samples, int layer) {
+    PartitionLayer partitionLayer = (PartitionLayer) network.layers.get(layer);
+    for (int i : samples)
+      partitionLayer.shape(network.project(inputs[i]));
+    if (samples.length > 0)
+      network.touch(layer);
+  }
+
+  /**
+   * Reduces the statistics of every shard into the neurons of one layer, in shard order
+   */
+  private static void reduce(ShapingNetwork network, ContextVector[] inputs, Shard[] trained, int layer) {
+    PartitionLayer partitionLayer = (PartitionLayer) network.layers.get(layer);
+    List<Neuron> neurons = partitionLayer.neurons();
+    int samples = 0;
+    for (Shard shard : trained)
+      samples += shard.samples[layer];
+
+    for (int i = 0; i < neurons.size(); i++) {
+      ContextVector sum = null;
+      int count = 0;
+      int last = -1;
+      int lastN = 0;
+      for (Shard shard : trained) {
+        Statistics statistics = shard.statistics(layer, i);
+        if (statistics == null)
+          continue;
+
+        if (sum == null)
+          sum = statistics.local.sumVector();
+        else
+          sum.merge(statistics.local.sumVector());
+        count += statistics.count;
+        last = statistics.last;
+        lastN = statistics.lastN;
+      }
+
+      if (sum != null)
+        neurons.get(i).absorb(sum, count, network.project(inputs[last]), lastN);
+    }
+    partitionLayer.advance(samples);
+    if (samples > 0)
+      network.touch(layer);
+  }
+
+  /**
+   * The statistics of one neuron within a shard
+   */
+  private static final class Statistics {
+
+    private final Neuron local;
+    private int count;
+    private int last;
+    private int lastN;
+
+    private Statistics(Neuron neuron, int dimension) {
+      this.local = new Neuron(dimension, neuron.shapingFunction(), false, NeuronState.of(Precision.DOUBLE, dimension));
+    }
+  }
+
+  /**
+   * A contiguous range of samples, accumulated into shard-local copies of the neurons they shape
+   */
+  private static final class Shard {
+
+    private final ShapingNetwork network;
+    private final ContextVector[] inputs;
+    private final int[] targets;
+    private final int from;
+    private final int to;
+    private final int[] starts;
+    private final int[] samples;
+    private final boolean[] ordered;
+    private final Statistics[][] statistics;
+    private final SplittableRandom random;
+
+    private Shard(ShapingNetwork network, ContextVector[] inputs, int[] targets, int from, int to, int[] starts, boolean[] ordered, SplittableRandom random) {
+      this.network = network;
+      this.inputs = inputs;
+      this.targets = targets;
+      this.from = from;
+      this.to = to;
+      this.starts = starts;
+      this.samples = new int[starts.length];
+      this.ordered = ordered;
+      this.statistics = new Statistics[starts.length][];
+      this.random = random;
+    }
+
+    private Shard train() {
+      for (int i = from; i < to; i++) {
+        ContextVector input = null;
+        for (int l : network.indicesOf(targets[i])) {
+          if (ordered[l])
+            continue; // shaped in order by the reduction
+
+          if (input == null)
+            input = network.project(inputs[i]);
+          PartitionLayer layer = (PartitionLayer) network.layers.get(l);
+          int n = starts[l] + samples[l];
+          for (int[] group : layer.partitions()) {
+            int target = layer.allShaped(group)
+              ? layer.closest(group, input)
+              : group[random.nextInt(group.length)];
+            accumulate(layer, l, target, i, n, input);
+          }
+
+          for (int w : layer.norm())
+            accumulate(layer, l, w, i, n, input);
+          samples[l]++;
+        }
+      }
+      return this;
+    }
+
+    private void accumulate(PartitionLayer layer, int l, int neuron, int sample, int n, ContextVector input) {
+      if (statistics[l] == null)
+        statistics[l] = new Statistics[layer.neurons().size()];
+
+      Statistics local = statistics[l][neuron];
+      if (local == null)
+        local = statistics[l][neuron] = new Statistics(layer.neurons().get(neuron), input.dimension());
+
+      ((LazyShapingFunction) local.local.shapingFunction()).accumulate(local.local, n, input);
+      local.count++;
+      local.last = sample;
+      local.lastN = n;
+    }
+
+    private Statistics statistics(int layer, int neuron) {
+      return statistics[layer] == null ? null : statistics[layer][neuron];
+    }
+  }
+
+}
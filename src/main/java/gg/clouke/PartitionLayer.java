@@ -1,11 +1,12 @@
 package gg.clouke;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * A Partition Layer performs partitioning on different nodes with the same shaping function,
@@ -18,23 +19,80 @@ import java.util.Random;
  */
 public class PartitionLayer implements Layer {
 
-  private static final Random R = new Random();
-
   private final List<Neuron> nodes = new ArrayList<>();
   private final int attribute;
+  private final int[] norm;
+  private final int[][] partitions;
+  private final SplittableRandom random;
   private int n = 0;
 
   public PartitionLayer(ComposedLayer composer, int input) {
+    this(composer, input, false);
+  }
+
+  public PartitionLayer(ComposedLayer composer, int input, boolean lazy) {
+    this(composer, input, lazy, Precision.DOUBLE);
+  }
+
+  public PartitionLayer(ComposedLayer composer, int input, boolean lazy, Precision precision) {
+    this(composer, input, lazy, precision, null);
+  }
+
+  /**
+   * @param composer The composed layer to create the neurons of
+   * @param input The amount of input nodes
+   * @param lazy Whether the neurons materialize their shape vectors on demand
+   * @param precision The precision in which the neurons store their vectors
+   * @param arena The arena to store the vectors of the neurons in, or null to keep them on the heap
+   */
+  public PartitionLayer(ComposedLayer composer, int input, boolean lazy, Precision precision, OffHeapArena arena) {
+    this(composer, input, lazy, precision, arena, new SplittableRandom());
+  }
+
+  /**
+   * @param composer The composed layer to create the neurons of
+   * @param input The amount of input nodes
+   * @param lazy Whether the neurons materialize their shape vectors on demand
+   * @param precision The precision in which the neurons store their vectors
+   * @param arena The arena to store the vectors of the neurons in, or null to keep them on the heap
+   * @param random The random stream of this layer, which picks the neurons to shape while partitioning
+   */
+  public PartitionLayer(ComposedLayer composer, int input, boolean lazy, Precision precision, OffHeapArena arena, SplittableRandom random) {
     this.attribute = composer.attribute();
+    this.random = random;
     composer.layerFunctions()
       .values()
       .forEach(
         fun -> nodes.add(
           new Neuron(
             input,
-            fun
+            fun,
+            lazy,
+            NeuronState.of(precision, input, arena)
           ))
       );
+
+    // plans the partitions once: the first neuron of each shaping function is always shaped,
+    // while the others of that function compete for each sample
+    List<Integer> norm = new ArrayList<>();
+    Map<ShapingFunction, List<Integer>> partition = new LinkedHashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      ShapingFunction function = nodes.get(i).shapingFunction();
+      List<Integer> group = partition.get(function);
+      if (group == null) {
+        norm.add(i);
+        partition.put(function, new ArrayList<>());
+      } else
+        group.add(i);
+    }
+
+    List<int[]> partitions = new ArrayList<>();
+    for (List<Integer> group : partition.values())
+      if (!group.isEmpty())
+        partitions.add(group.stream().mapToInt(Integer::intValue).toArray());
+
+    this.norm = norm.stream().mapToInt(Integer::intValue).toArray();
+    this.partitions = partitions.toArray(new int[0][]);
   }
 
   @Override
@@ -45,47 +103,85 @@ public class PartitionLayer implements Layer {
 
   @Override
   public void shape(ContextVector y) {
-    List<Neuron> norm = new ArrayList<>();
-    Map<ShapingFunction, List<Neuron>> partition = new HashMap<>();
-    for (Neuron n : nodes) {
-      boolean contains = norm.stream()
-        .anyMatch(e -> e.shapingFunction()
-          .equals(n.shapingFunction())
-        );
-
-      if (contains) {
-        partition.computeIfAbsent(
-          n.shapingFunction(), k ->
-            new ArrayList<>())
-          .add(n);
-        continue;
-      }
-
-      norm.add(n);
+    for (int[] group : partitions) {
+      int target = allShaped(group)
+        ? closest(group, y)
+        : group[random.nextInt(group.length)];
+      nodes.get(target).shape(y, n);
     }
 
-    if (!partition.isEmpty()) {
-      partition.keySet()
-        .forEach(func -> {
-          List<Neuron> neurons = partition.get(func);
-          boolean allShaped = neurons
-            .stream()
-            .allMatch(n -> n.numShapes() > 0);
-
-          if (allShaped)
-            neurons.stream()
-              .max(Comparator.comparingDouble(x -> x.shapeVector().cosine(y)))
-              .ifPresent(w -> w.shape(y, n));
-          else {
-            Neuron random = neurons.get(R.nextInt(neurons.size()));
-            random.shape(y, n);
-          }
-        });
+    for (int w : norm)
+      nodes.get(w).shape(y, n);
+    n++;
+  }
+
+  /**
+   * Checks whether every neuron of the given partition has been shaped
+   *
+   * @param group The positions of the neurons of the partition
+   * @return Returns whether every neuron has been shaped
+   */
+  boolean allShaped(int[] group) {
+    for (int i : group)
+      if (nodes.get(i).numShapes() == 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * Finds the neuron of the given partition closest to the given vector, preferring the first one on ties
+   *
+   * @param group The positions of the neurons of the partition
+   * @param y The vector to compare with
+   * @return Returns the position of the closest neuron
+   */
+  int closest(int[] group, ContextVector y) {
+    int best = group[0];
+    double bestCosine = nodes.get(best).cosine(y);
+    for (int k = 1; k < group.length; k++) {
+      double cosine = nodes.get(group[k]).cosine(y);
+      if (Double.compare(cosine, bestCosine) > 0) {
+        best = group[k];
+        bestCosine = cosine;
+      }
     }
+    return best;
+  }
 
-    for (Neuron w : norm)
-      w.shape(y, n);
-    n++;
+  /**
+   * Gets the positions of the neurons which are shaped by every sample
+   *
+   * @return Returns the positions of the neurons, which must not be modified
+   */
+  int[] norm() {
+    return norm;
+  }
+
+  /**
+   * Gets the positions of the neurons of each partition, of which one neuron is shaped per sample
+   *
+   * @return Returns the positions of the neurons of each partition, which must not be modified
+   */
+  int[][] partitions() {
+    return partitions;
+  }
+
+  /**
+   * Gets the amount of samples this layer has been shaped with
+   *
+   * @return Returns the amount of samples
+   */
+  int samples() {
+    return n;
+  }
+
+  /**
+   * Advances the sample counter of this layer, after its neurons absorbed samples shaped elsewhere
+   *
+   * @param samples The amount of absorbed samples
+   */
+  void advance(int samples) {
+    n += samples;
   }
 
   @Override
@@ -93,11 +189,20 @@ public class PartitionLayer implements Layer {
     return attribute;
   }
 
+  /**
+   * Gets the neurons of this layer
+   *
+   * @return Returns an unmodifiable view of the neurons of this layer
+   */
+  public List<Neuron> neurons() {
+    return Collections.unmodifiableList(nodes);
+  }
+
   @Override
   public double predict(ContextVector x) {
     double weightedMean = 0.0;
     for (Neuron child : nodes)
-      weightedMean += x.cosine(child.shapeVector());
+      weightedMean += child.cosine(x);
     return weightedMean / nodes.size();
   }
 }
@@ -0,0 +1,36 @@
+package gg.clouke;
+
+/**
+ * The precision in which the neurons of a network store their sum and shape vectors.
+ * <p>
+ * All arithmetic is performed in double precision, only the stored state is narrowed.
+ * Let δ be the relative L2 error of a stored shape vector. A cosine score, and so the
+ * probability of a layer (the mean of its scores), then drifts from the double path
+ * by at most {@code asin(δ) ≈ δ}:
+ * <ul>
+ *   <li>{@link #FLOAT32} rounds the shape once (δ ≤ 2^-24), but the sum is rounded on every update,
+ *   so after n updates of a MEAN neuron δ ≤ (n + 1) · 2^-24 in the worst case (same-signed inputs).</li>
+ *   <li>{@link #FLOAT32_COMPENSATED} keeps the sum as an unevaluated pair of floats, which holds
+ *   about 48 bits of it, so δ ≤ 2^-24 + n · 2^-48, i.e. below 1.2e-7 for any practical run.</li>
+ * </ul>
+ * The non-linear shapes (LOG_MEAN, GEOMETRIC_MEAN, HARMONIC_MEAN) amplify the error of the sum
+ * by their condition number, which is unbounded near zero inputs.
+ *
+ * @author Clouke
+ * @since 18.10.2026 15:31
+ * © shape-network - All Rights Reserved
+ */
+public enum Precision {
+  /**
+   * 16 bytes per input dimension and neuron
+   */
+  DOUBLE,
+  /**
+   * 8 bytes per input dimension and neuron
+   */
+  FLOAT32,
+  /**
+   * 12 bytes per input dimension and neuron, where the sum is accumulated in about 48 bits
+   */
+  FLOAT32_COMPENSATED
+}
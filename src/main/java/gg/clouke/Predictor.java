@@ -0,0 +1,78 @@
+package gg.clouke;
+
+import java.util.Arrays;
+
+/**
+ * Anything which can predict the probabilities of each layer for an input vector
+ *
+ * @author Clouke
+ * @since 18.10.2026 16:48
+ * © shape-network - All Rights Reserved
+ */
+@FunctionalInterface
+public interface Predictor {
+
+  /**
+   * Performs a prediction on the given input vector and returns the probabilities for each layer
+   *
+   * @param vector The input vector to predict the probabilities of
+   * @return Returns an array of probabilities for each layer
+   */
+  double[] predict(ContextVector vector);
+
+  /**
+   * Performs a prediction on each row of the given row-major input matrix,
+   * which predictors with a batched scoring pass override
+   *
+   * @param inputs The row-major input matrix
+   * @param rows The amount of input rows
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   * @throws IllegalArgumentException If the input cannot be split into the given amount of rows of equal dimension
+   */
+  default double[][] predict(double[] inputs, int rows) {
+    if (rows < 0 || (rows == 0 ? inputs.length != 0 : inputs.length % rows != 0))
+      throw new IllegalArgumentException("Input of length " + inputs.length + " cannot be split into " + rows + " rows of equal dimension");
+    if (rows == 0)
+      return new double[0][];
+
+    int dimension = inputs.length / rows;
+    double[][] probabilities = new double[rows][];
+    for (int b = 0; b < rows; b++)
+      probabilities[b] = predict(new ContextVector(Arrays.copyOfRange(inputs, b * dimension, (b + 1) * dimension)));
+    return probabilities;
+  }
+
+  /**
+   * Performs a prediction on each row of the given view, which predictors with a batched scoring pass override.
+   * Each row is loaded into a single reused vector, so the predictor may not keep the vector it is given.
+   *
+   * @param matrix The rows to predict the probabilities of
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   */
+  default double[][] predict(RowMatrix matrix) {
+    ContextVector row = ContextVector.withCapacity(matrix.dimension());
+    double[][] probabilities = new double[matrix.rows()][];
+    for (int b = 0; b < matrix.rows(); b++)
+      probabilities[b] = predict(matrix.row(b, row));
+    return probabilities;
+  }
+
+  /**
+   * Gets the index of the layer with the highest probability
+   *
+   * @param probabilities The probabilities to search
+   * @return Returns the index of the highest probability
+   */
+  static int argmax(double[] probabilities) {
+    int maxIndex = 0;
+    double max = -Double.MAX_VALUE;
+    for (int i = 0; i < probabilities.length; i++) {
+      if (probabilities[i] > max) {
+        max = probabilities[i];
+        maxIndex = i;
+      }
+    }
+    return maxIndex;
+  }
+
+}
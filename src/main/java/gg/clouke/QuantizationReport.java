@@ -0,0 +1,105 @@
+package gg.clouke;
+
+/**
+ * The accuracy of a {@link QuantizedNetwork} compared to its full-precision network
+ *
+ * @author Clouke
+ * @since 18.10.2026 16:48
+ * © shape-network - All Rights Reserved
+ */
+public final class QuantizationReport {
+
+  private final int samples;
+  private final double referenceAccuracy;
+  private final double quantizedAccuracy;
+  private final double agreement;
+  private final double maxProbabilityError;
+  private final double meanProbabilityError;
+
+  QuantizationReport(int samples, double referenceAccuracy, double quantizedAccuracy, double agreement,
+                     double maxProbabilityError, double meanProbabilityError) {
+    this.samples = samples;
+    this.referenceAccuracy = referenceAccuracy;
+    this.quantizedAccuracy = quantizedAccuracy;
+    this.agreement = agreement;
+    this.maxProbabilityError = maxProbabilityError;
+    this.meanProbabilityError = meanProbabilityError;
+  }
+
+  /**
+   * Gets the amount of validation samples
+   *
+   * @return Returns the amount of validation samples
+   */
+  public int samples() {
+    return samples;
+  }
+
+  /**
+   * Gets the share of samples the full-precision network classified correctly
+   *
+   * @return Returns the accuracy of the full-precision network
+   */
+  public double referenceAccuracy() {
+    return referenceAccuracy;
+  }
+
+  /**
+   * Gets the share of samples the quantized network classified correctly
+   *
+   * @return Returns the accuracy of the quantized network
+   */
+  public double quantizedAccuracy() {
+    return quantizedAccuracy;
+  }
+
+  /**
+   * Gets the accuracy of the quantized network minus the accuracy of the full-precision network
+   *
+   * @return Returns the accuracy delta
+   */
+  public double accuracyDelta() {
+    return quantizedAccuracy - referenceAccuracy;
+  }
+
+  /**
+   * Gets the share of samples both networks classified the same
+   *
+   * @return Returns the agreement of both networks
+   */
+  public double agreement() {
+    return agreement;
+  }
+
+  /**
+   * Gets the largest absolute difference of any layer probability
+   *
+   * @return Returns the largest probability error
+   */
+  public double maxProbabilityError() {
+    return maxProbabilityError;
+  }
+
+  /**
+   * Gets the mean absolute difference of the layer probabilities
+   *
+   * @return Returns the mean probability error
+   */
+  public double meanProbabilityError() {
+    return meanProbabilityError;
+  }
+
+  @Override
+  public String toString() {
+    return "QuantizationReport{" +
+      "samples=" + samples +
+      ", referenceAccuracy=" + referenceAccuracy +
+      ", quantizedAccuracy=" + quantizedAccuracy +
+      ", accuracyDelta=" + accuracyDelta() +
+      ", agreement=" + agreement +
+      ", maxProbabilityError=" + maxProbabilityError +
+      ", meanProbabilityError=" + meanProbabilityError +
+      '}';
+  }
+
+}
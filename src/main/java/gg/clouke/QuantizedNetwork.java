@@ -0,0 +1,197 @@
+package gg.clouke;
+
+/**
+ * An int8 quantized inference model of a compiled network.
+ * <p>
+ * Each L2-normalized neuron row is stored as bytes with its own scale factor,
+ * and every input is quantized symmetrically on the fly, so the cosine numerator
+ * is accumulated in integer arithmetic. The weights take a quarter of the memory
+ * of a {@link CompiledNetwork}, and a quantized network is safe to share across threads.
+ *
+ * @author Clouke
+ * @since 18.10.2026 16:48
+ * © shape-network - All Rights Reserved
+ */
+public final class QuantizedNetwork implements Predictor {
+
+  private static final int LEVELS = 127;
+  // beyond this dimension, 127 * 127 * dimension could overflow an int accumulator
+  private static final int INT_ACCUMULATION_LIMIT = Integer.MAX_VALUE / (LEVELS * LEVELS);
+
+  private final int dimension;
+  private final int[] attributes;
+  private final int[] offsets;
+  private final byte[] weights;
+  private final float[] scales;
+
+  QuantizedNetwork(int dimension, int[] attributes, int[] offsets, byte[] weights, float[] scales) {
+    this.dimension = dimension;
+    this.attributes = attributes;
+    this.offsets = offsets;
+    this.weights = weights;
+    this.scales = scales;
+  }
+
+  /**
+   * Quantizes the given compiled network
+   *
+   * @param network The network to quantize
+   * @return Returns the quantized network
+   */
+  public static QuantizedNetwork of(CompiledNetwork network) {
+    int dimension = network.dimension();
+    int neurons = network.neurons();
+    int[] attributes = new int[network.layers()];
+    int[] offsets = new int[network.layers() + 1];
+    for (int layer = 0; layer < network.layers(); layer++) {
+      attributes[layer] = network.attribute(layer);
+      offsets[layer + 1] = network.offset(layer + 1);
+    }
+
+    byte[] weights = new byte[neurons * dimension];
+    float[] scales = new float[neurons];
+    double[] row = new double[dimension];
+    for (int r = 0; r < neurons; r++) {
+      network.row(r, row, 0);
+      scales[r] = quantize(row, 0, dimension, weights, r * dimension);
+    }
+
+    return new QuantizedNetwork(dimension, attributes, offsets, weights, scales);
+  }
+
+  /**
+   * Quantizes a range symmetrically into bytes
+   *
+   * @return Returns the scale factor, or 0 if the range is all zeros
+   */
+  private static float quantize(double[] values, int offset, int length, byte[] into, int intoOffset) {
+    double max = 0.0;
+    for (int i = 0; i < length; i++)
+      max = Math.max(max, Math.abs(values[offset + i]));
+    if (max == 0 || Double.isNaN(max))
+      return 0.0f;
+
+    double scale = max / LEVELS;
+    for (int i = 0; i < length; i++)
+      into[intoOffset + i] = (byte) Math.round(values[offset + i] / scale);
+    return (float) scale;
+  }
+
+  @Override
+  public double[] predict(ContextVector vector) {
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Dimension of input must be " + dimension);
+
+    double[] probabilities = new double[attributes.length];
+    double magnitude = vector.magnitude();
+    if (magnitude == 0)
+      return probabilities;
+
+    byte[] x = new byte[dimension];
+    double inputScale = quantize(vector.values(), 0, dimension, x, 0);
+    VectorKernels kernels = VectorKernels.active();
+    int dim = dimension;
+    boolean wide = dim > INT_ACCUMULATION_LIMIT;
+    for (int layer = 0; layer < attributes.length; layer++) {
+      int from = offsets[layer];
+      int to = offsets[layer + 1];
+      double sum = 0.0;
+      for (int row = from; row < to; row++) {
+        long dot = wide
+          ? dot(weights, row * dim, x, dim)
+          : kernels.dot(weights, row * dim, x, 0, dim);
+        sum += dot * (double) scales[row];
+      }
+      probabilities[layer] = sum * inputScale / magnitude / (to - from);
+    }
+
+    return probabilities;
+  }
+
+  /**
+   * Computes an integer dot product too long for an int accumulator, in int-sized chunks
+   */
+  private static long dot(byte[] w, int offset, byte[] x, int length) {
+    VectorKernels kernels = VectorKernels.active();
+    long dot = 0;
+    for (int from = 0; from < length; from += INT_ACCUMULATION_LIMIT) {
+      int chunk = Math.min(INT_ACCUMULATION_LIMIT, length - from);
+      dot += kernels.dot(w, offset + from, x, from, chunk);
+    }
+    return dot;
+  }
+
+  /**
+   * Compares the predictions of this network against the given full-precision reference
+   *
+   * @param reference The full-precision network to compare against
+   * @param samples The validation samples
+   * @param labels The expected layer index of each sample
+   * @return Returns the report of the comparison
+   */
+  public QuantizationReport report(Predictor reference, ContextVector[] samples, int[] labels) {
+    if (samples.length != labels.length)
+      throw new IllegalArgumentException("Each sample must have a label");
+
+    int referenceCorrect = 0;
+    int quantizedCorrect = 0;
+    int agreements = 0;
+    double maxError = 0.0;
+    double totalError = 0.0;
+    long scores = 0;
+    for (int i = 0; i < samples.length; i++) {
+      double[] expected = reference.predict(samples[i]);
+      double[] actual = predict(samples[i]);
+      int expectedIndex = Predictor.argmax(expected);
+      int actualIndex = Predictor.argmax(actual);
+      if (expectedIndex == labels[i]) referenceCorrect++;
+      if (actualIndex == labels[i]) quantizedCorrect++;
+      if (expectedIndex == actualIndex) agreements++;
+      for (int layer = 0; layer < expected.length; layer++) {
+        double error = Math.abs(expected[layer] - actual[layer]);
+        maxError = Math.max(maxError, error);
+        totalError += error;
+        scores++;
+      }
+    }
+
+    int n = samples.length;
+    return new QuantizationReport(
+      n,
+      n == 0 ? 0.0 : (double) referenceCorrect / n,
+      n == 0 ? 0.0 : (double) quantizedCorrect / n,
+      n == 0 ? 0.0 : (double) agreements / n,
+      maxError,
+      scores == 0 ? 0.0 : totalError / scores
+    );
+  }
+
+  /**
+   * Gets the input dimension of this network
+   *
+   * @return Returns the input dimension of this network
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets the amount of layers in this network
+   *
+   * @return Returns the amount of layers in this network
+   */
+  public int layers() {
+    return attributes.length;
+  }
+
+  /**
+   * Gets the attribute target of the given layer
+   *
+   * @param layer The index of the layer
+   * @return Returns the attribute target of the given layer
+   */
+  public int attribute(int layer) {
+    return attributes[layer];
+  }
+
+}
@@ -0,0 +1,230 @@
+package gg.clouke;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A seeded sparse random projection after Achlioptas, reducing the dimension of vectors
+ * while approximately preserving their cosine geometry.
+ * <p>
+ * Each entry of the projection matrix is {@code +sqrt(s / output)} or {@code -sqrt(s / output)}
+ * with a probability of {@code 1 / 2s} each, and zero otherwise. Achlioptas uses {@code s = 3};
+ * like the very sparse projections of Li, Hastie and Church, this uses {@code s = sqrt(input)}
+ * for larger inputs, which keeps the same guarantees for inputs that are not dominated by a few values
+ * while projecting {@code sqrt(input) / 3} times faster.
+ * <p>
+ * The matrix is fully determined by its dimensions and seed, so the same projection can be rebuilt
+ * when a model is reloaded. Only its non-zero entries are stored, grouped per input dimension,
+ * so projecting a sparse vector only costs time proportional to its non-zero values.
+ *
+ * @author Clouke
+ * @since 18.10.2026 20:48
+ * © shape-network - All Rights Reserved
+ */
+public final class RandomProjection {
+
+  private final int input;
+  private final int output;
+  private final long seed;
+  private final double scale;
+  private final int[] offsets;
+  private final int[] negatives;
+  private final int[] targets;
+
+  /**
+   * @param input The dimension of the vectors to project
+   * @param output The dimension to project the vectors to
+   * @param seed The seed the projection matrix is generated from
+   */
+  public RandomProjection(int input, int output, long seed) {
+    if (input <= 0 || output <= 0)
+      throw new IllegalArgumentException("Dimensions must be positive");
+
+    this.input = input;
+    this.output = output;
+    this.seed = seed;
+    int sparsity = Math.max(3, (int) Math.sqrt(input));
+    this.scale = Math.sqrt((double) sparsity / output);
+    this.offsets = new int[input + 1];
+    this.negatives = new int[input];
+
+    // the entries of each input dimension are stored with the positive ones first
+    SplittableRandom random = new SplittableRandom(seed);
+    int[] entries = new int[Math.max(16, (int) Math.min(Integer.MAX_VALUE - 8, (long) input * output / sparsity))];
+    int[] negative = new int[output];
+    int count = 0;
+    for (int i = 0; i < input; i++) {
+      int numNegative = 0;
+      for (int j = 0; j < output; j++) {
+        int draw = random.nextInt(2 * sparsity);
+        if (draw > 1)
+          continue;
+
+        if (draw == 1) {
+          negative[numNegative++] = j;
+          continue;
+        }
+
+        entries = ensureCapacity(entries, count + 1);
+        entries[count++] = j;
+      }
+
+      negatives[i] = count;
+      entries = ensureCapacity(entries, count + numNegative);
+      System.arraycopy(negative, 0, entries, count, numNegative);
+      count += numNegative;
+      offsets[i + 1] = count;
+    }
+    this.targets = Arrays.copyOf(entries, count);
+  }
+
+  private static int[] ensureCapacity(int[] entries, int capacity) {
+    if (capacity <= entries.length)
+      return entries;
+    return Arrays.copyOf(entries, Math.max(capacity, entries.length + (entries.length >> 1)));
+  }
+
+  /**
+   * Gets the dimension of the vectors to project
+   *
+   * @return Returns the input dimension
+   */
+  public int inputDimension() {
+    return input;
+  }
+
+  /**
+   * Gets the dimension the vectors are projected to
+   *
+   * @return Returns the output dimension
+   */
+  public int outputDimension() {
+    return output;
+  }
+
+  /**
+   * Gets the seed the projection matrix is generated from
+   *
+   * @return Returns the seed
+   */
+  public long seed() {
+    return seed;
+  }
+
+  /**
+   * Projects the given vector into a new vector
+   *
+   * @param vector The vector to project
+   * @return Returns the projected vector
+   */
+  public ContextVector project(ContextVector vector) {
+    return project(vector, ContextVector.withCapacity(output));
+  }
+
+  /**
+   * Projects the given vector into the given destination, reusing its backing array
+   *
+   * @param vector The vector to project
+   * @param destination The vector to overwrite with the projection
+   * @return Returns the destination vector
+   * @throws IllegalStateException If the vector does not have the input dimension
+   */
+  public ContextVector project(ContextVector vector, ContextVector destination) {
+    if (vector.dimension() != input)
+      throw new IllegalStateException("Dimension of the vector must be " + input + ", but was " + vector.dimension());
+
+    double[] out = destination.resize(0).resize(output).values();
+    if (vector instanceof SparseContextVector) {
+      SparseContextVector sparse = (SparseContextVector) vector;
+      int[] indices = sparse.indices();
+      double[] data = sparse.data();
+      for (int k = 0; k < sparse.nonZeros(); k++)
+        scatter(indices[k], data[k], out, 0);
+    } else
+      project(vector.values(), 0, out, 0);
+
+    for (int j = 0; j < output; j++)
+      out[j] *= scale;
+    return destination;
+  }
+
+  /**
+   * Projects each row of the given row-major input matrix
+   *
+   * @param inputs The row-major input matrix
+   * @param rows The amount of input rows
+   * @return Returns the row-major matrix of projected rows
+   * @throws IllegalStateException If the matrix does not hold rows of the input dimension
+   */
+  public double[] project(double[] inputs, int rows) {
+    if ((long) rows * input != inputs.length)
+      throw new IllegalStateException("Inputs must hold " + rows + " rows of dimension " + input);
+
+    return project(inputs, 0, input, rows);
+  }
+
+  /**
+   * Projects each row of the given view, reading array-backed rows in place and copying the rows of a direct buffer
+   *
+   * @param matrix The rows to project
+   * @return Returns the row-major matrix of projected rows
+   * @throws IllegalStateException If the rows do not have the input dimension
+   */
+  public double[] project(RowMatrix matrix) {
+    if (matrix.dimension() != input)
+      throw new IllegalStateException("Dimension of the rows must be " + input + ", but was " + matrix.dimension());
+    if (matrix.array() != null)
+      return project(matrix.array(), matrix.offset(), matrix.stride(), matrix.rows());
+
+    double[] rows = new double[Math.multiplyExact(matrix.rows(), input)];
+    matrix.copyRows(0, matrix.rows(), rows);
+    return project(rows, matrix.rows());
+  }
+
+  /**
+   * Projects each row of the given row-major input buffer, reading the rows in place
+   *
+   * @param inputs The row-major input buffer
+   * @param offset The offset of the first row within the buffer
+   * @param stride The distance between the starts of two consecutive rows
+   * @param rows The amount of input rows
+   * @return Returns the row-major matrix of projected rows
+   * @throws IllegalStateException If the buffer does not hold the rows of the input dimension
+   */
+  public double[] project(double[] inputs, int offset, int stride, int rows) {
+    if (offset < 0 || stride < input || rows < 0 || (rows > 0 && offset + (long) (rows - 1) * stride + input > inputs.length))
+      throw new IllegalStateException("Inputs must hold " + rows + " rows of dimension " + input + " with a stride of " + stride);
+
+    double[] projected = new double[rows * output];
+    for (int b = 0; b < rows; b++)
+      project(inputs, offset + b * stride, projected, b * output);
+    for (int j = 0; j < projected.length; j++)
+      projected[j] *= scale;
+    return projected;
+  }
+
+  /**
+   * Projects a row of a flat input array into a row of a flat output array
+   *
+   * @param in The array holding the row to project
+   * @param inOffset The offset of the row within the input array
+   * @param out The array to add the unscaled projection to
+   * @param outOffset The offset of the row within the output array
+   */
+  private void project(double[] in, int inOffset, double[] out, int outOffset) {
+    for (int i = 0; i < input; i++) {
+      double value = in[inOffset + i];
+      if (value != 0.0)
+        scatter(i, value, out, outOffset);
+    }
+  }
+
+  private void scatter(int i, double value, double[] out, int outOffset) {
+    int split = negatives[i];
+    for (int p = offsets[i]; p < split; p++)
+      out[outOffset + targets[p]] += value;
+    for (int p = split; p < offsets[i + 1]; p++)
+      out[outOffset + targets[p]] -= value;
+  }
+
+}
@@ -0,0 +1,184 @@
+package gg.clouke;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A read-only view of rows laid out in a flat row-major buffer, such as the columns of a feature store.
+ * <p>
+ * Rows start {@code stride} values apart from the given offset, so they may be padded or interleaved
+ * with other columns. Nothing is copied when the view is created: an array-backed view is scored in place,
+ * and training loads one row at a time into a single reused vector.
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:58
+ * © shape-network - All Rights Reserved
+ */
+public final class RowMatrix {
+
+  /**
+   * Creates a view of the given densely packed row-major matrix
+   *
+   * @param values The row-major matrix
+   * @param dimension The amount of values of each row
+   * @return Returns a new view
+   * @throws IllegalArgumentException If the matrix does not hold whole rows of the given dimension
+   */
+  public static RowMatrix of(double[] values, int dimension) {
+    if (dimension <= 0 || values.length % dimension != 0)
+      throw new IllegalArgumentException("Values must hold whole rows of dimension " + dimension);
+
+    return new RowMatrix(values, 0, dimension, dimension, values.length / dimension);
+  }
+
+  private final double[] array;
+  private final DoubleBuffer buffer;
+  private final int offset;
+  private final int stride;
+  private final int dimension;
+  private final int rows;
+
+  /**
+   * @param values The buffer holding the rows
+   * @param offset The offset of the first row within the buffer
+   * @param stride The distance between the starts of two consecutive rows
+   * @param dimension The amount of values of each row
+   * @param rows The amount of rows
+   * @throws IllegalArgumentException If the buffer does not hold the given rows
+   */
+  public RowMatrix(double[] values, int offset, int stride, int dimension, int rows) {
+    check(values.length, offset, stride, dimension, rows);
+    this.array = values;
+    this.buffer = null;
+    this.offset = offset;
+    this.stride = stride;
+    this.dimension = dimension;
+    this.rows = rows;
+  }
+
+  /**
+   * Creates a view of the rows following the position of the given buffer.
+   * Heap buffers are viewed through their backing array, other buffers are read with absolute gets
+   * and are not affected by later changes of their position or limit.
+   *
+   * @param values The buffer holding the rows
+   * @param stride The distance between the starts of two consecutive rows
+   * @param dimension The amount of values of each row
+   * @param rows The amount of rows
+   * @throws IllegalArgumentException If the remaining values of the buffer do not hold the given rows
+   */
+  public RowMatrix(DoubleBuffer values, int stride, int dimension, int rows) {
+    check(values.remaining(), 0, stride, dimension, rows);
+    if (values.hasArray()) {
+      this.array = values.array();
+      this.buffer = null;
+      this.offset = values.arrayOffset() + values.position();
+    } else {
+      this.array = null;
+      this.buffer = values.duplicate();
+      this.offset = values.position();
+    }
+    this.stride = stride;
+    this.dimension = dimension;
+    this.rows = rows;
+  }
+
+  private static void check(int length, int offset, int stride, int dimension, int rows) {
+    if (offset < 0 || dimension < 0 || rows < 0)
+      throw new IllegalArgumentException("Offset, dimension and rows cannot be negative");
+    if (stride < dimension)
+      throw new IllegalArgumentException("Stride cannot be smaller than the dimension");
+    if (rows > 0 && offset + (long) (rows - 1) * stride + dimension > length)
+      throw new IllegalArgumentException("Buffer must hold " + rows + " rows of dimension " + dimension + " with a stride of " + stride);
+  }
+
+  /**
+   * Loads the given row into the given vector, reusing its backing array
+   *
+   * @param row The index of the row
+   * @param destination The dense vector to overwrite with the row
+   * @return Returns the destination vector
+   */
+  public ContextVector row(int row, ContextVector destination) {
+    if (row < 0 || row >= rows)
+      throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for " + rows + " rows");
+
+    int start = start(row);
+    if (array != null)
+      return destination.assign(array, start, dimension);
+
+    double[] values = destination.resize(dimension).values();
+    for (int i = 0; i < dimension; i++)
+      values[i] = buffer.get(start + i);
+    return destination;
+  }
+
+  /**
+   * Copies the given rows densely packed into the given array
+   *
+   * @param from The index of the first row
+   * @param count The amount of rows
+   * @param destination The array to copy the rows into, holding at least {@code count * dimension} values
+   */
+  void copyRows(int from, int count, double[] destination) {
+    for (int b = 0; b < count; b++) {
+      int start = start(from + b);
+      int to = b * dimension;
+      if (array != null) {
+        System.arraycopy(array, start, destination, to, dimension);
+        continue;
+      }
+      for (int i = 0; i < dimension; i++)
+        destination[to + i] = buffer.get(start + i);
+    }
+  }
+
+  private int start(int row) {
+    return offset + row * stride;
+  }
+
+  /**
+   * Gets the array holding the rows
+   *
+   * @return Returns the backing array, or null when the rows are held by a direct buffer
+   */
+  public double[] array() {
+    return array;
+  }
+
+  /**
+   * Gets the offset of the first row within the backing array or buffer
+   *
+   * @return Returns the offset of the first row
+   */
+  public int offset() {
+    return offset;
+  }
+
+  /**
+   * Gets the distance between the starts of two consecutive rows
+   *
+   * @return Returns the stride
+   */
+  public int stride() {
+    return stride;
+  }
+
+  /**
+   * Gets the amount of values of each row
+   *
+   * @return Returns the dimension of the rows
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets the amount of rows
+   *
+   * @return Returns the amount of rows
+   */
+  public int rows() {
+    return rows;
+  }
+
+}
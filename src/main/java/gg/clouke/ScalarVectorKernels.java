@@ -0,0 +1,153 @@
+package gg.clouke;
+
+/**
+ * The scalar {@link VectorKernels}, available on every JDK
+ *
+ * @author Clouke
+ * @since 18.10.2026 14:05
+ * © shape-network - All Rights Reserved
+ */
+final class ScalarVectorKernels implements VectorKernels {
+
+  static final ScalarVectorKernels INSTANCE = new ScalarVectorKernels();
+
+  private ScalarVectorKernels() {}
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    double dot = 0.0;
+    for (int i = 0; i < length; i++)
+      dot += x[xOffset + i] * y[yOffset + i];
+    return dot;
+  }
+
+  @Override
+  public int dot(byte[] x, int xOffset, byte[] y, int yOffset, int length) {
+    int dot = 0;
+    for (int i = 0; i < length; i++)
+      dot += x[xOffset + i] * y[yOffset + i];
+    return dot;
+  }
+
+  @Override
+  public void accumulateDots(double[] w, int wOffset, double[] x, int xOffset, int xStride, int count, int length,
+                             double[] out, int outOffset, int outStride) {
+    int k = 0;
+    // four inputs share every load of the weight row, and their sums do not depend on each other
+    for (; k + 3 < count; k += 4) {
+      int x0 = xOffset + k * xStride, x1 = x0 + xStride, x2 = x1 + xStride, x3 = x2 + xStride;
+      int t0 = outOffset + k * outStride;
+      double s0 = out[t0];
+      double s1 = out[t0 + outStride];
+      double s2 = out[t0 + 2 * outStride];
+      double s3 = out[t0 + 3 * outStride];
+      for (int i = 0; i < length; i++) {
+        double wi = w[wOffset + i];
+        s0 += wi * x[x0 + i];
+        s1 += wi * x[x1 + i];
+        s2 += wi * x[x2 + i];
+        s3 += wi * x[x3 + i];
+      }
+      out[t0] = s0;
+      out[t0 + outStride] = s1;
+      out[t0 + 2 * outStride] = s2;
+      out[t0 + 3 * outStride] = s3;
+    }
+
+    for (; k < count; k++) {
+      int x0 = xOffset + k * xStride;
+      int t = outOffset + k * outStride;
+      double dot = out[t];
+      for (int i = 0; i < length; i++)
+        dot += w[wOffset + i] * x[x0 + i];
+      out[t] = dot;
+    }
+  }
+
+  @Override
+  public double sumOfSquares(double[] x, int offset, int length) {
+    double sum = 0.0;
+    for (int i = offset; i < offset + length; i++)
+      sum += x[i] * x[i];
+    return sum;
+  }
+
+  @Override
+  public double cosine(double[] x, double[] y, int length) {
+    double dotProduct = 0.0;
+    double normX = 0.0;
+    double normY = 0.0;
+
+    for (int i = 0; i < length; i++) {
+      double xi = x[i];
+      double yi = y[i];
+      dotProduct += xi * yi;
+      normX += xi * xi;
+      normY += yi * yi;
+    }
+
+    double magnitudeX = Math.sqrt(normX);
+    double magnitudeY = Math.sqrt(normY);
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  @Override
+  public void add(double[] x, double[] y, int length) {
+    for (int i = 0; i < length; i++)
+      x[i] += y[i];
+  }
+
+  @Override
+  public void average(double[] x, double[] y, int length) {
+    for (int i = 0; i < length; i++)
+      x[i] = (x[i] + y[i]) / 2;
+  }
+
+  @Override
+  public void divide(double[] x, double divisor, double[] z, int length) {
+    for (int i = 0; i < length; i++)
+      z[i] = x[i] / divisor;
+  }
+
+  @Override
+  public void min(double[] x, double[] y, double[] z, int length) {
+    for (int i = 0; i < length; i++)
+      z[i] = Math.min(x[i], y[i]);
+  }
+
+  @Override
+  public void max(double[] x, double[] y, double[] z, int length) {
+    for (int i = 0; i < length; i++)
+      z[i] = Math.max(x[i], y[i]);
+  }
+
+  @Override
+  public void maxMean(double[] x, double[] y, double[] z, int length) {
+    for (int i = 0; i < length; i++) {
+      double max = Math.max(x[i], y[i]);
+      z[i] = (x[i] + max) / 2;
+    }
+  }
+
+  @Override
+  public void harmonic(double[] x, double[] y, double n, double[] z, int length) {
+    for (int i = 0; i < length; i++)
+      z[i] = n / ((1 / x[i]) + (1 / y[i]));
+  }
+
+  @Override
+  public void quadratic(double[] x, double[] y, double[] z, int length) {
+    for (int i = 0; i < length; i++)
+      z[i] = Math.sqrt((x[i] * x[i]) + (y[i] * y[i]));
+  }
+
+}
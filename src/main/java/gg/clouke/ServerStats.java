@@ -0,0 +1,104 @@
+package gg.clouke;
+
+/**
+ * The load of an {@link InferenceServer} since it was started
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:05
+ * © shape-network - All Rights Reserved
+ */
+public final class ServerStats {
+
+  private final long requests;
+  private final long rejected;
+  private final long batches;
+  private final int maxBatchSize;
+  private final int queueDepth;
+  private final int maxQueueDepth;
+
+  ServerStats(long requests, long rejected, long batches, int maxBatchSize, int queueDepth, int maxQueueDepth) {
+    this.requests = requests;
+    this.rejected = rejected;
+    this.batches = batches;
+    this.maxBatchSize = maxBatchSize;
+    this.queueDepth = queueDepth;
+    this.maxQueueDepth = maxQueueDepth;
+  }
+
+  /**
+   * Gets the amount of requests which were scored
+   *
+   * @return Returns the amount of scored requests
+   */
+  public long requests() {
+    return requests;
+  }
+
+  /**
+   * Gets the amount of requests which were rejected because the queue was full
+   *
+   * @return Returns the amount of rejected requests
+   */
+  public long rejected() {
+    return rejected;
+  }
+
+  /**
+   * Gets the amount of batched scoring passes
+   *
+   * @return Returns the amount of batches
+   */
+  public long batches() {
+    return batches;
+  }
+
+  /**
+   * Gets the mean amount of requests scored per batch
+   *
+   * @return Returns the mean batch size
+   */
+  public double meanBatchSize() {
+    return batches == 0 ? 0.0 : (double) requests / batches;
+  }
+
+  /**
+   * Gets the largest amount of requests scored in one batch
+   *
+   * @return Returns the largest batch size
+   */
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Gets the amount of requests waiting to be batched
+   *
+   * @return Returns the current queue depth
+   */
+  public int queueDepth() {
+    return queueDepth;
+  }
+
+  /**
+   * Gets the largest amount of requests which waited to be batched at once
+   *
+   * @return Returns the largest queue depth
+   */
+  public int maxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  @Override
+  public String toString() {
+    return "ServerStats{" +
+      "requests=" + requests +
+      ", rejected=" + rejected +
+      ", batches=" + batches +
+      ", meanBatchSize=" + meanBatchSize() +
+      ", maxBatchSize=" + maxBatchSize +
+      ", queueDepth=" + queueDepth +
+      ", maxQueueDepth=" + maxQueueDepth +
+      '}';
+  }
+
+}
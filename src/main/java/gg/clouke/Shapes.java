@@ -1,149 +1,217 @@
 package gg.clouke;
 
+import java.nio.DoubleBuffer;
+
 /**
+ * The built-in shaping functions, all of which shape
+ * the neuron in place without allocating a new vector
+ * and support lazy materialization of the shape vector
+ *
  * @author Clouke
  * @since 03.01.2024 20:39
  * © shape-network - All Rights Reserved
  */
 public enum Shapes {
-  MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        shape.get(i) / n
-      );
+  MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, sum / n);
     }
-
-    return shape;
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().divide(sum, n, x, shape.dimension());
   }),
-  MIN((node, n, w) -> {
-    if (n == 0) // skip computation due to random initialization
-      return w.copy();
-
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        Math.min(shape.get(i), w.get(i))
-      );
+  MIN(true, (region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, Math.min(sum, y[i]));
+    }
+  }, (node, n, w, shape) -> {
+    if (n == 0) { // skip computation due to random initialization
+      shape.assign(w);
+      return;
     }
 
-    return shape;
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().min(sum, y, x, shape.dimension());
   }),
-  MAX((node, n, w) -> {
-    if (n == 0)
-      return w.copy();
-
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        Math.max(shape.get(i), w.get(i))
-      );
+  MAX(true, (region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, Math.max(sum, y[i]));
+    }
+  }, (node, n, w, shape) -> {
+    if (n == 0) {
+      shape.assign(w);
+      return;
     }
 
-    return shape;
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().max(sum, y, x, shape.dimension());
   }),
-  MAX_MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      double max = Math.max(shape.get(i), w.get(i));
-      shape.modify(
-        i,
-        (shape.get(i) + max) / 2
-      );
+  MAX_MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, (sum + Math.max(sum, y[i])) / 2);
     }
-
-    return shape;
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().maxMean(sum, y, x, shape.dimension());
   }),
 
-  LOG_MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
+  LOG_MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, Math.exp(Math.log(sum) + Math.log(y[i]) / n));
+    }
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
     for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        Math.exp(
-          Math.log(shape.get(i)) + Math.log(w.get(i)) / n
-        )
+      x[i] = Math.exp(
+        Math.log(sum[i]) + Math.log(y[i]) / n
       );
     }
-
-    return shape;
   }),
-  GEOMETRIC_MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
+  GEOMETRIC_MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, Math.pow(sum, y[i] / n));
+    }
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
     for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        Math.pow(
-          shape.get(i),
-          w.get(i) / n
-        )
+      x[i] = Math.pow(
+        sum[i],
+        y[i] / n
       );
     }
-
-    return shape;
   }),
-  HARMONIC_MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        n / (
-          (1 / shape.get(i)) + (1 / w.get(i))
-        )
-      );
+  HARMONIC_MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, n / ((1 / sum) + (1 / y[i])));
     }
-
-    return shape;
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().harmonic(sum, y, n, x, shape.dimension());
   }),
-  QUADRATIC_MEAN((node, n, w) -> {
-    ContextVector sum = node.sumVector();
-    sum.merge(w);
-
-    ContextVector shape = sum.copy();
-    for (int i = 0; i < shape.dimension(); i++) {
-      shape.modify(
-        i,
-        Math.sqrt(
-          (shape.get(i) * shape.get(i)) + (w.get(i) * w.get(i))
-        )
-      );
+  QUADRATIC_MEAN((region, dimension, n, y) -> {
+    for (int i = 0; i < dimension; i++) {
+      double sum = region.get(i) + y[i];
+      region.put(i, sum);
+      region.put(dimension + i, Math.sqrt((sum * sum) + (y[i] * y[i])));
     }
-
-    return shape;
+  }, (node, n, w, shape) -> {
+    double[] sum = node.sumVector().values();
+    double[] y = w.values();
+    double[] x = shape.resize(w.dimension()).values();
+    VectorKernels.active().quadratic(sum, y, x, shape.dimension());
   });
 
-  private final ShapingFunction function;
+  private final LazyShapingFunction function;
+  private final boolean skipFirst;
+  private final BufferShaper bufferShaper;
+
+  Shapes(BufferShaper bufferShaper, InPlaceShapingFunction materializer) {
+    this(false, bufferShaper, materializer);
+  }
 
-  Shapes(ShapingFunction function) {
-    this.function = function;
+  /**
+   * @param skipFirst Whether the sum vector is left untouched on the first shape (n = 0)
+   * @param bufferShaper Shapes a neuron stored in a buffer, as the accumulation and the materializer do on the heap
+   * @param materializer Computes the shape vector from the sum vector and the last input
+   */
+  Shapes(boolean skipFirst, BufferShaper bufferShaper, InPlaceShapingFunction materializer) {
+    this.skipFirst = skipFirst;
+    this.bufferShaper = bufferShaper;
+    this.function = new LazyShapingFunction() {
+      @Override
+      public void accumulate(Neuron node, int n, ContextVector w) {
+        if (skipFirst && n == 0)
+          return;
+
+        node.sumVector().merge(w);
+      }
+
+      @Override
+      public void materialize(Neuron node, int n, ContextVector w, ContextVector shape) {
+        materializer.shapeInto(node, n, w, shape);
+      }
+
+      @Override
+      public String toString() {
+        return name();
+      }
+    };
   }
 
   public ShapingFunction function() {
     return function;
   }
 
+  /**
+   * Shapes a neuron stored in the given buffer, as its sum vector followed by its shape vector, in place.
+   * Each value of the input is accumulated into the sum vector and materialized into the shape vector within one pass over the buffer,
+   * so nothing is staged on the heap.
+   *
+   * @param region The buffer holding the sum and shape vector
+   * @param dimension The dimension of the vectors
+   * @param n The amount of times the neuron has been shaped
+   * @param w The context vector to shape the neuron with, of the same dimension
+   */
+  void shapeInto(DoubleBuffer region, int dimension, int n, ContextVector w) {
+    double[] y = w.values();
+    if (skipFirst && n == 0) {
+      for (int i = 0; i < dimension; i++)
+        region.put(dimension + i, y[i]);
+      return;
+    }
+
+    bufferShaper.shape(region, dimension, n, y);
+  }
+
+  /**
+   * Accumulates the last input into the sum vector of a neuron stored in a buffer, and materializes its shape vector in the same pass.
+   * Every shape loops on its own, so each loop only runs a single computation.
+   */
+  @FunctionalInterface
+  interface BufferShaper {
+
+    void shape(DoubleBuffer region, int dimension, int n, double[] y);
+
+  }
+
+  /**
+   * Finds the shape the given shaping function belongs to
+   *
+   * @param function The shaping function to find the shape of
+   * @return Returns the shape of the function, or null when it is a custom function
+   */
+  static Shapes of(ShapingFunction function) {
+    for (Shapes shape : values())
+      if (shape.function == function)
+        return shape;
+    return null;
+  }
+
 }
@@ -1,49 +1,224 @@
 package gg.clouke;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * A network of partition layers, one or more per attribute, trained by feeding samples to the layers of their target.
+ * <p>
+ * By default, a network may only be used from one thread at a time. A concurrent network guards each layer with its own lock,
+ * so {@link #feed(ContextVector, int)} can be called from many threads, and samples of different targets are shaped in parallel.
+ * <p>
+ * To serve predictions while training continues, the training thread {@link #publish() publishes} immutable snapshots,
+ * either explicitly or every few samples through {@link #publishEvery(int)}. Readers predict against the latest snapshot
+ * through {@link #predictSnapshot(ContextVector)} without taking any locks, and never observe a half-shaped neuron.
+ *
  * @author Clouke
  * @since 03.01.2024 20:42
  * © shape-network - All Rights Reserved
  */
-public class ShapingNetwork extends AbstractShapingNetwork {
+public class ShapingNetwork extends AbstractShapingNetwork implements AutoCloseable {
 
   private final List<ComposedLayer> composers;
-  private int epochs;
+  private final boolean lazy;
+  private final Precision precision;
+  private final boolean offHeap;
+  private final int projectionDimension;
+  private final long projectionSeed;
+  private final ThreadLocal<ContextVector> projected = ThreadLocal.withInitial(ContextVector::newVector);
+  private RandomProjection projection;
+  private final boolean concurrent;
+  private OffHeapArena arena;
+  private ReentrantLock[] locks;
+  private final LongAdder epochs = new LongAdder();
   private double loss;
-  private boolean initialized;
+  private volatile boolean initialized;
+
+  private SplittableRandom random = new SplittableRandom();
+  private final ReentrantLock publishLock = new ReentrantLock();
+  private final AtomicInteger unpublished = new AtomicInteger();
+  private AtomicIntegerArray changedLayers;
+  private volatile CompiledNetwork published;
+  private volatile int publishInterval;
+  private volatile Thread feeder; // only tracked when not concurrent, to detect publications racing with a feed
+  private volatile Thread publisher;
+  private final ReentrantLock compiledLock = new ReentrantLock();
+  private AtomicIntegerArray staleLayers;
+  private CompiledNetwork compiled;
+
+  private final ReentrantLock sampleLock = new ReentrantLock();
+  private ContextVector lastSample;
+  private boolean lossPending;
 
   public ShapingNetwork(List<ComposedLayer> composers) {
+    this(composers, false);
+  }
+
+  /**
+   * @param composers The composed layers of this network
+   * @param lazy Whether shape vectors are only computed once they are read after a change
+   */
+  public ShapingNetwork(List<ComposedLayer> composers, boolean lazy) {
+    this(composers, lazy, Precision.DOUBLE);
+  }
+
+  /**
+   * @param composers The composed layers of this network
+   * @param lazy Whether shape vectors are only computed once they are read after a change
+   * @param precision The precision in which the neurons store their sum and shape vectors
+   */
+  public ShapingNetwork(List<ComposedLayer> composers, boolean lazy, Precision precision) {
+    this(composers, lazy, precision, false);
+  }
+
+  /**
+   * @param composers The composed layers of this network
+   * @param lazy Whether shape vectors are only computed once they are read after a change
+   * @param precision The precision in which the neurons store their sum and shape vectors
+   * @param offHeap Whether the neurons store their vectors off the heap, until this network is closed
+   */
+  public ShapingNetwork(List<ComposedLayer> composers, boolean lazy, Precision precision, boolean offHeap) {
+    this(composers, lazy, precision, offHeap, 0, 0L);
+  }
+
+  /**
+   * @param composers The composed layers of this network
+   * @param lazy Whether shape vectors are only computed once they are read after a change
+   * @param precision The precision in which the neurons store their sum and shape vectors
+   * @param offHeap Whether the neurons store their vectors off the heap, until this network is closed
+   * @param projectionDimension The dimension to randomly project every input to, or 0 to keep the inputs as they are
+   * @param projectionSeed The seed of the random projection
+   */
+  public ShapingNetwork(List<ComposedLayer> composers, boolean lazy, Precision precision, boolean offHeap, int projectionDimension, long projectionSeed) {
+    this(composers, lazy, precision, offHeap, projectionDimension, projectionSeed, false);
+  }
+
+  /**
+   * @param composers The composed layers of this network
+   * @param lazy Whether shape vectors are only computed once they are read after a change
+   * @param precision The precision in which the neurons store their sum and shape vectors
+   * @param offHeap Whether the neurons store their vectors off the heap, until this network is closed
+   * @param projectionDimension The dimension to randomly project every input to, or 0 to keep the inputs as they are
+   * @param projectionSeed The seed of the random projection
+   * @param concurrent Whether the network can be fed and predicted from many threads at once
+   */
+  public ShapingNetwork(List<ComposedLayer> composers, boolean lazy, Precision precision, boolean offHeap, int projectionDimension, long projectionSeed, boolean concurrent) {
+    if (projectionDimension < 0)
+      throw new IllegalArgumentException("Projection dimension cannot be negative");
+    if (offHeap && precision != Precision.DOUBLE)
+      throw new IllegalArgumentException("Off-heap storage only supports double precision");
+
     this.composers = composers;
+    this.lazy = lazy;
+    this.precision = precision;
+    this.offHeap = offHeap;
+    this.projectionDimension = projectionDimension;
+    this.projectionSeed = projectionSeed;
+    this.concurrent = concurrent;
   }
 
   public void train(double[][] x, double[][] y) {
-    ContextVector[] vectors = new ContextVector[x.length];
+    ContextVector row = ContextVector.newVector();
     for (int i = 0; i < x.length; i++)
-      vectors[i] = ContextVector.newVector().addValuesToVector(x[i]);
+      feed(row.assign(x[i], 0, x[i].length), (int) y[i][0]);
+  }
 
-    for (int i = 0; i < vectors.length; i++)
-      feed(vectors[i], (int) y[i][0]);
+  /**
+   * Feeds each row of the given view in order, loading the rows one at a time into a single reused vector
+   *
+   * @param inputs The input rows
+   * @param targets The target of each row
+   * @throws IllegalArgumentException If there are fewer targets than rows
+   */
+  public void train(RowMatrix inputs, int[] targets) {
+    train(inputs, targets, 0);
+  }
+
+  /**
+   * Feeds each row of the given view in order, loading the rows one at a time into a single reused vector
+   *
+   * @param inputs The input rows
+   * @param targets The array holding the target of each row
+   * @param offset The offset of the target of the first row within the array
+   * @throws IllegalArgumentException If the array does not hold a target for each row
+   */
+  public void train(RowMatrix inputs, int[] targets, int offset) {
+    if (offset < 0 || offset + (long) inputs.rows() > targets.length)
+      throw new IllegalArgumentException("Each input must have a target");
+
+    ContextVector row = ContextVector.withCapacity(inputs.dimension());
+    for (int i = 0; i < inputs.rows(); i++)
+      feed(inputs.row(i, row), targets[offset + i]);
   }
 
   public void feed(ContextVector vector, int target) {
-    initialize(vector.dimension());
+    if (concurrent) {
+      shape(vector, target);
+      return;
+    }
+
+    Thread current = Thread.currentThread();
+    feeder = current;
+    try {
+      checkPublisher(current, publisher);
+      shape(vector, target);
+    } finally {
+      feeder = null;
+    }
+  }
+
+  private void shape(ContextVector vector, int target) {
+    if (!initialized)
+      initialize(vector.dimension());
 
     if (target >= layers.size())
       throw new IllegalArgumentException("Target is out of bounds");
 
-    layers.stream()
-      .filter(layer ->
-        layer.attribute() == target)
-      .forEach(layer ->
-        layer.shape(vector)
-      );
+    ContextVector input = project(vector);
+    for (int index : indicesOf(target)) {
+      Layer layer = layers.get(index);
+      if (locks == null) {
+        layer.shape(input);
+        continue;
+      }
+
+      locks[index].lock();
+      try {
+        layer.shape(input);
+      } finally {
+        locks[index].unlock();
+      }
+    }
+    for (int index : indicesOf(target))
+      touch(index);
 
-    double[] probabilities = predict(vector);
+    // the network does not change until the next sample, so the loss is only computed once it is read.
+    // Concurrent feeds skip recording their sample while another thread records one.
+    if (sampleLock.tryLock()) {
+      try {
+        if (lastSample == null)
+          lastSample = ContextVector.withCapacity(input.dimension());
+        lastSample.assign(input);
+        lossPending = true;
+      } finally {
+        sampleLock.unlock();
+      }
+    }
+
+    epochs.increment();
+    publishIfDue(1);
+  }
+
+  private double loss(ContextVector input) {
+    double[] probabilities = super.predict(input);
     double max = -Double.MAX_VALUE;
     for (double probability : probabilities)
       max = Math.max(
@@ -51,8 +226,318 @@ public class ShapingNetwork extends AbstractShapingNetwork {
         probability
       );
 
-    loss = 1.0 - max;
-    epochs++;
+    return 1.0 - max;
+  }
+
+  /**
+   * Records samples which were shaped outside of {@link #feed(ContextVector, int)}
+   *
+   * @param input The last of the samples, already projected
+   * @param samples The amount of samples
+   */
+  void record(ContextVector input, int samples) {
+    sampleLock.lock();
+    try {
+      if (lastSample == null)
+        lastSample = ContextVector.withCapacity(input.dimension());
+      lastSample.assign(input);
+      lossPending = true;
+    } finally {
+      sampleLock.unlock();
+    }
+    epochs.add(samples);
+    publishIfDue(samples);
+  }
+
+  /**
+   * Marks a layer as changed since the last published snapshot and the last compilation of the batched predictions
+   *
+   * @param layer The index of the changed layer
+   */
+  void touch(int layer) {
+    changedLayers.set(layer, 1);
+    staleLayers.set(layer, 1);
+  }
+
+  /**
+   * Publishes a snapshot automatically after every given amount of fed samples.
+   * When a publication is already underway, the samples are published with the next one.
+   * <p>
+   * The publication runs synchronously on the thread whose sample made it due, inside {@link #feed(ContextVector, int)},
+   * and normalizes every neuron of the layers which changed since the previous snapshot.
+   * When many layers change between publications of a wide network, that stalls the feeding thread for a while,
+   * in which case a {@link ShapingNetworkBuilder#concurrent(boolean) concurrent} network can be published
+   * by calling {@link #publish()} from a thread of its own instead. Any other network shapes its neurons without locks,
+   * so it can only be published from the thread feeding it.
+   *
+   * @param samples The amount of samples between publications, or 0 to only publish explicitly
+   */
+  public void publishEvery(int samples) {
+    if (samples < 0)
+      throw new IllegalArgumentException("Publish interval cannot be negative");
+    this.publishInterval = samples;
+  }
+
+  private void publishIfDue(int samples) {
+    int interval = publishInterval;
+    if (interval > 0 && unpublished.addAndGet(samples) >= interval && publishLock.tryLock()) {
+      try {
+        publishChanges();
+      } finally {
+        publishLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Publishes an immutable snapshot of the current state of this network.
+   * Only the layers which changed since the previous snapshot are compiled again into new weight blocks,
+   * the blocks of the others are shared with it, and the previous snapshot stays untouched for its readers.
+   * <p>
+   * A concurrent network locks each layer while it is compiled, so it can be published while other threads feed it.
+   * Any other network must be published from the thread feeding it, or while nothing feeds it.
+   *
+   * @return Returns the published snapshot
+   * @throws IllegalStateException If the network is not initialized, holds layers which cannot be compiled,
+   * or is not concurrent and fed by another thread meanwhile
+   */
+  public CompiledNetwork publish() {
+    if (!initialized)
+      throw new IllegalStateException("Network is not initialized");
+
+    publishLock.lock();
+    try {
+      if (!concurrent) {
+        Thread current = Thread.currentThread();
+        publisher = current;
+        checkPublisher(current, feeder);
+      }
+      return publishChanges();
+    } finally {
+      publisher = null;
+      publishLock.unlock();
+    }
+  }
+
+  /**
+   * Fails when a network which is not concurrent is fed and published by different threads at once.
+   * Both sides announce their thread before checking the other one, so at least one of them sees the overlap
+   *
+   * @param current The current thread
+   * @param other The thread feeding or publishing the network, or null
+   */
+  private static void checkPublisher(Thread current, Thread other) {
+    if (other != null && other != current)
+      throw new IllegalStateException("Network must be concurrent to be published while another thread feeds it");
+  }
+
+  private CompiledNetwork publishChanges() {
+    unpublished.set(0);
+    int[] changed = drain(changedLayers);
+    CompiledNetwork previous = published;
+    CompiledNetwork next = previous == null
+      ? CompiledNetwork.of(layers, this::guard)
+      : previous.update(layers, changed, this::guard);
+    published = next;
+    return next;
+  }
+
+  /**
+   * Gets the compiled network the batched predictions are scored with, which is cached between calls.
+   * Only the layers which changed since the previous call are compiled again.
+   *
+   * @return Returns the compiled network
+   */
+  @Override
+  protected CompiledNetwork compiled() {
+    if (!initialized)
+      return super.compiled();
+
+    compiledLock.lock();
+    try {
+      int[] changed = drain(staleLayers);
+      if (compiled == null)
+        compiled = CompiledNetwork.of(layers, this::guard);
+      else if (changed.length > 0)
+        compiled = compiled.update(layers, changed, this::guard);
+      return compiled;
+    } finally {
+      compiledLock.unlock();
+    }
+  }
+
+  /**
+   * Clears the given change marks, so changes made while the drained layers are compiled are seen next time
+   *
+   * @param marks The change mark of each layer
+   * @return Returns the indices of the layers which were marked
+   */
+  private static int[] drain(AtomicIntegerArray marks) {
+    int[] changed = new int[marks.length()];
+    int numChanged = 0;
+    for (int i = 0; i < changed.length; i++)
+      if (marks.getAndSet(i, 0) == 1)
+        changed[numChanged++] = i;
+    return Arrays.copyOf(changed, numChanged);
+  }
+
+  private void guard(int layer, Runnable compilation) {
+    if (locks == null) {
+      compilation.run();
+      return;
+    }
+
+    locks[layer].lock();
+    try {
+      compilation.run();
+    } finally {
+      locks[layer].unlock();
+    }
+  }
+
+  /**
+   * Gets the latest published snapshot, which expects inputs that are already projected
+   *
+   * @return Returns the latest snapshot, or null when none has been published yet
+   */
+  public CompiledNetwork snapshot() {
+    return published;
+  }
+
+  /**
+   * Performs a prediction against the latest published snapshot, without taking any locks,
+   * so it is safe to call while the network is fed from other threads
+   *
+   * @param vector The input vector to predict the probabilities of
+   * @return Returns an array of probabilities for each layer
+   * @throws IllegalStateException If no snapshot has been published yet
+   */
+  public double[] predictSnapshot(ContextVector vector) {
+    CompiledNetwork snapshot = published;
+    if (snapshot == null)
+      throw new IllegalStateException("No snapshot has been published");
+    return snapshot.predict(project(vector));
+  }
+
+  /**
+   * Performs a prediction on each row of the given row-major input matrix against the latest published snapshot,
+   * without taking any locks
+   *
+   * @param inputs The row-major input matrix
+   * @param rows The amount of input rows
+   * @return Returns a dense {@code [batch][layers]} array of probabilities
+   * @throws IllegalStateException If no snapshot has been published yet
+   */
+  public double[][] predictSnapshot(double[] inputs, int rows) {
+    CompiledNetwork snapshot = published;
+    if (snapshot == null)
+      throw new IllegalStateException("No snapshot has been published");
+    return snapshot.predict(projection == null ? inputs : projection.project(inputs, rows), rows);
+  }
+
+  /**
+   * Gets a predictor which always predicts against the latest published snapshot,
+   * such as to serve predictions while this network is trained
+   *
+   * @return Returns the snapshot predictor
+   */
+  public Predictor snapshotPredictor() {
+    return new Predictor() {
+      @Override
+      public double[] predict(ContextVector vector) {
+        return predictSnapshot(vector);
+      }
+
+      @Override
+      public double[][] predict(double[] inputs, int rows) {
+        return predictSnapshot(inputs, rows);
+      }
+    };
+  }
+
+  /**
+   * Projects the given vector to the dimension of the neurons,
+   * into a buffer of the current thread which is reused by the next projection
+   */
+  ContextVector project(ContextVector vector) {
+    if (projection == null)
+      return vector;
+    return projection.project(vector, projected.get());
+  }
+
+  /**
+   * Scores the given range of layers, locking each layer while it is scored when concurrent
+   */
+  @Override
+  protected void score(ContextVector vector, double[] probabilities, int from, int to) {
+    if (locks == null) {
+      super.score(vector, probabilities, from, to);
+      return;
+    }
+
+    for (int i = from; i < to; i++) {
+      locks[i].lock();
+      try {
+        probabilities[i] = layers.get(i).predict(vector);
+      } finally {
+        locks[i].unlock();
+      }
+    }
+  }
+
+  @Override
+  public double[] predict(ContextVector vector) {
+    return super.predict(project(vector));
+  }
+
+  /**
+   * Compiles the current state of this network. A concurrent network holds the locks of all layers while compiling,
+   * so the compiled network reflects a single point in time.
+   *
+   * @return Returns the compiled network
+   * @throws IllegalStateException If the network is not initialized
+   */
+  @Override
+  public CompiledNetwork compile() {
+    if (locks == null)
+      return super.compile();
+
+    for (ReentrantLock lock : locks)
+      lock.lock();
+    try {
+      return super.compile();
+    } finally {
+      for (ReentrantLock lock : locks)
+        lock.unlock();
+    }
+  }
+
+  @Override
+  public double[][] predict(ContextVector[] vectors) {
+    if (projection == null)
+      return super.predict(vectors);
+
+    ContextVector[] inputs = new ContextVector[vectors.length];
+    for (int b = 0; b < vectors.length; b++)
+      inputs[b] = projection.project(vectors[b]);
+    return super.predict(inputs);
+  }
+
+  @Override
+  public double[][] predict(double[] inputs, int rows) {
+    if (projection == null)
+      return super.predict(inputs, rows);
+    return super.predict(projection.project(inputs, rows), rows);
+  }
+
+  @Override
+  public double[][] predict(RowMatrix matrix) {
+    if (projection == null)
+      return super.predict(matrix);
+    if (matrix.dimension() != projection.inputDimension())
+      throw new IllegalArgumentException("Dimension of input must be " + projection.inputDimension());
+
+    return super.predict(projection.project(matrix), matrix.rows());
   }
 
   public void randomize(Random random)
@@ -65,32 +550,164 @@ public class ShapingNetwork extends AbstractShapingNetwork {
     layers.forEach(layer ->
       layer.randomize(random)
     );
+    for (int i = 0; i < layers.size(); i++)
+      touch(i);
   }
 
+  /**
+   * Randomizes the weights of this network from its own random stream,
+   * which reproduces the same weights for the same {@link #seed(long) seed}
+   */
   public void randomize() {
-    randomize(new Random());
+    randomize(new Random(split().nextLong()));
+  }
+
+  /**
+   * Seeds the random streams of this network, from which each layer, randomization and parallel training shard
+   * splits its own stream. Training then picks the same neurons for the same seed, samples and sharding.
+   *
+   * @param seed The seed of this network
+   * @throws IllegalStateException If the network is already initialized
+   */
+  public synchronized void seed(long seed) {
+    if (initialized)
+      throw new IllegalStateException("Network is already initialized");
+    this.random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Splits a new random stream from the stream of this network
+   *
+   * @return Returns the new random stream
+   */
+  synchronized SplittableRandom split() {
+    return random.split();
   }
 
   public double accuracy() {
-    return 1.0 - loss;
+    sampleLock.lock();
+    try {
+      if (lossPending) {
+        loss = loss(lastSample);
+        lossPending = false;
+      }
+      return 1.0 - loss;
+    } finally {
+      sampleLock.unlock();
+    }
   }
 
   public int epochs() {
-    return epochs;
+    return epochs.intValue();
   }
 
-  public void initialize(int input) {
+  /**
+   * Initializes the layers of this network for inputs of the given dimension.
+   * When a projection is configured, the neurons are sized for the projected dimension instead.
+   *
+   * @param input The dimension of the inputs
+   */
+  public synchronized void initialize(int input) {
     init: {
       if (initialized)
         break init;
 
+      if (projectionDimension > 0) {
+        projection = new RandomProjection(input, projectionDimension, projectionSeed);
+        input = projectionDimension;
+      }
+
+      if (offHeap) {
+        long bytes = 0;
+        for (ComposedLayer composer : composers)
+          bytes += (long) composer.layerFunctions().size() * input * 2 * Double.BYTES;
+        arena = new OffHeapArena((int) Math.max(Double.BYTES, Math.min(bytes, OffHeapArena.DEFAULT_REGION_BYTES)));
+      }
+
       initializeLayers(
         new ArrayList<>(composers),
-        input
+        input,
+        lazy,
+        precision,
+        arena,
+        random
       );
       composers.clear();
+      changedLayers = new AtomicIntegerArray(layers.size());
+      staleLayers = new AtomicIntegerArray(layers.size());
+
+      if (concurrent) {
+        locks = new ReentrantLock[layers.size()];
+        for (int i = 0; i < locks.length; i++)
+          locks[i] = new ReentrantLock();
+      }
       initialized = true;
     }
   }
 
+  /**
+   * Gets the random projection applied to every input before it reaches the neurons.
+   * Networks returned by {@link #compile()} expect inputs which are already projected.
+   *
+   * @return Returns the random projection, or null when the inputs are not projected
+   */
+  public RandomProjection projection() {
+    return projection;
+  }
+
+  /**
+   * Gets whether the layers of this network have been created
+   *
+   * @return Returns whether the network is initialized
+   */
+  boolean initialized() {
+    return initialized;
+  }
+
+  /**
+   * Gets whether the neurons of this network materialize their shape vectors on demand
+   *
+   * @return Returns whether the network is lazy
+   */
+  boolean lazy() {
+    return lazy;
+  }
+
+  /**
+   * Gets the precision in which the neurons of this network store their vectors
+   *
+   * @return Returns the precision of the network
+   */
+  Precision precision() {
+    return precision;
+  }
+
+  /**
+   * Gets whether this network can be fed and predicted from many threads at once
+   *
+   * @return Returns whether the network is concurrent
+   */
+  public boolean concurrent() {
+    return concurrent;
+  }
+
+  /**
+   * Gets the arena holding the vectors of the neurons
+   *
+   * @return Returns the off-heap arena, or null when the vectors are kept on the heap
+   */
+  public OffHeapArena arena() {
+    return arena;
+  }
+
+  /**
+   * Releases the off-heap memory of this network, after which it can no longer be used.
+   * No other thread may use the network while it is closed.
+   */
+  @Override
+  public void close() {
+    if (arena != null)
+      arena.close();
+  }
+
 }
@@ -2,6 +2,9 @@ package gg.clouke;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A builder class for {@link ShapingNetwork}
@@ -13,6 +16,17 @@ import java.util.List;
 public class ShapingNetworkBuilder {
 
   private final List<ComposedLayer> layers = new ArrayList<>();
+  private boolean lazy;
+  private Precision precision = Precision.DOUBLE;
+  private boolean offHeap;
+  private int projectionDimension;
+  private long projectionSeed;
+  private boolean concurrent;
+  private Executor predictionExecutor;
+  private int predictionThreshold;
+  private int predictionChunks;
+  private int publishInterval;
+  private Long seed;
 
   /**
    * Connects the given layer to this network
@@ -44,13 +58,142 @@ public class ShapingNetworkBuilder {
     return this;
   }
 
+  /**
+   * Enables lazy shaping, where feeding only updates the statistics of the neurons
+   * and their shape vectors are computed once they are read after a change
+   *
+   * @param lazy Whether to shape lazily
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder lazy(boolean lazy) {
+    this.lazy = lazy;
+    return this;
+  }
+
+  /**
+   * Sets the precision in which the neurons store their sum and shape vectors,
+   * see {@link Precision} for the bounds on how far predictions may drift
+   *
+   * @param precision The precision to use
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder precision(Precision precision) {
+    this.precision = Objects.requireNonNull(precision, "Precision cannot be null");
+    return this;
+  }
+
+  /**
+   * Stores the vectors of all neurons in a few large off-heap regions,
+   * which are released by {@link ShapingNetwork#close()}
+   *
+   * @param offHeap Whether to store the vectors off the heap
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder offHeap(boolean offHeap) {
+    this.offHeap = offHeap;
+    return this;
+  }
+
+  /**
+   * Randomly projects every input to the given dimension before it is fed or predicted,
+   * which makes shaping and scoring cost proportional to the projected dimension, see {@link RandomProjection}
+   *
+   * @param dimension The dimension to project the inputs to
+   * @param seed The seed of the projection, which rebuilds the same projection when the model is reloaded
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder project(int dimension, long seed) {
+    if (dimension <= 0)
+      throw new IllegalArgumentException("Projection dimension must be positive");
+
+    this.projectionDimension = dimension;
+    this.projectionSeed = seed;
+    return this;
+  }
+
+  /**
+   * Guards each layer with its own lock, so the network can be fed from many threads at once,
+   * where samples of different targets are shaped in parallel
+   *
+   * @param concurrent Whether the network can be used from many threads at once
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder concurrent(boolean concurrent) {
+    this.concurrent = concurrent;
+    return this;
+  }
+
+  /**
+   * Scores the layers of single predictions in parallel on the given pool,
+   * once the network holds at least the given amount of layers
+   *
+   * @param pool The pool to score the layers on
+   * @param threshold The amount of layers from which predictions are scored in parallel
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder parallelPrediction(ForkJoinPool pool, int threshold) {
+    return parallelPrediction(pool, threshold, pool.getParallelism() + 1);
+  }
+
+  /**
+   * Scores the layers of single predictions in contiguous chunks on the given executor,
+   * once the network holds at least the given amount of layers
+   *
+   * @param executor The executor to score the chunks on
+   * @param threshold The amount of layers from which predictions are scored in parallel
+   * @param chunks The amount of chunks to split the layers into, of which the calling thread scores one
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder parallelPrediction(Executor executor, int threshold, int chunks) {
+    if (threshold <= 0 || chunks <= 0)
+      throw new IllegalArgumentException("Threshold and chunks must be positive");
+
+    this.predictionExecutor = Objects.requireNonNull(executor, "Executor cannot be null");
+    this.predictionThreshold = threshold;
+    this.predictionChunks = chunks;
+    return this;
+  }
+
+  /**
+   * Publishes an immutable snapshot for lock-free predictions after every given amount of fed samples,
+   * see {@link ShapingNetwork#predictSnapshot(ContextVector)}
+   *
+   * @param samples The amount of samples between publications
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder publishEvery(int samples) {
+    if (samples <= 0)
+      throw new IllegalArgumentException("Publish interval must be positive");
+
+    this.publishInterval = samples;
+    return this;
+  }
+
+  /**
+   * Seeds the network, from which every layer, randomization and parallel training shard splits its own random stream,
+   * so training is reproducible for the same seed
+   *
+   * @param seed The seed of the network
+   * @return Returns this network builder for chaining
+   */
+  public ShapingNetworkBuilder seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
   /**
    * Builds the network
    *
    * @return Returns the built network
    */
   public ShapingNetwork build() {
-    return new ShapingNetwork(layers);
+    ShapingNetwork network = new ShapingNetwork(layers, lazy, precision, offHeap, projectionDimension, projectionSeed, concurrent);
+    if (predictionExecutor != null)
+      network.parallelPrediction(predictionExecutor, predictionThreshold, predictionChunks);
+    network.publishEvery(publishInterval);
+    if (seed != null)
+      network.seed(seed);
+    return network;
   }
 
 }
\ No newline at end of file
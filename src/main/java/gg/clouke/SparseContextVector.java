@@ -0,0 +1,522 @@
+package gg.clouke;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sparse vector, storing only its non-zero values as sorted index and value arrays.
+ * <p>
+ * It can be used anywhere a {@link ContextVector} is expected. Merging it into a dense vector,
+ * and scoring it against a neuron, only costs time proportional to its non-zero values,
+ * whereas operations which touch every dimension fall back to a dense view.
+ *
+ * @author Clouke
+ * @since 18.10.2026 19:14
+ * © shape-network - All Rights Reserved
+ */
+public class SparseContextVector extends ContextVector {
+
+  private static final int[] NO_INDICES = new int[0];
+  private static final double[] NO_VALUES = new double[0];
+
+  /**
+   * Creates a new sparse vector from the given sorted indices and their values
+   *
+   * @param dimension The dimension of the vector
+   * @param indices The strictly increasing indices of the values
+   * @param values The values at the given indices
+   * @return Returns a new sparse vector instance
+   */
+  public static SparseContextVector of(int dimension, int[] indices, double[] values) {
+    if (indices.length != values.length)
+      throw new IllegalArgumentException("Each index must have a value");
+
+    SparseContextVector vector = new SparseContextVector(dimension);
+    vector.indices = indices.clone();
+    vector.data = values.clone();
+    vector.nonZeros = indices.length;
+    for (int k = 0; k < indices.length; k++) {
+      if (indices[k] < 0 || indices[k] >= dimension || (k > 0 && indices[k] <= indices[k - 1]))
+        throw new IllegalArgumentException("Indices must be strictly increasing and within the dimension");
+    }
+    return vector;
+  }
+
+  /**
+   * Creates a new sparse vector holding the non-zero values of the given vector
+   *
+   * @param context The vector to convert
+   * @return Returns a new sparse vector instance
+   */
+  public static SparseContextVector of(ContextVector context) {
+    if (context instanceof SparseContextVector)
+      return ((SparseContextVector) context).copy();
+
+    SparseContextVector vector = new SparseContextVector(context.dimension());
+    double[] values = context.values();
+    for (int i = 0; i < context.dimension(); i++)
+      if (values[i] != 0.0)
+        vector.append(i, values[i]);
+    return vector;
+  }
+
+  private int dimension;
+  private int[] indices = NO_INDICES;
+  private double[] data = NO_VALUES;
+  private int nonZeros;
+  private volatile double[] dense; // published safely to threads scoring one vector in parallel
+
+  /**
+   * Creates a new sparse vector of only zeros
+   *
+   * @param dimension The dimension of the vector
+   */
+  public SparseContextVector(int dimension) {
+    if (dimension < 0)
+      throw new IllegalArgumentException("Dimension cannot be negative");
+    this.dimension = dimension;
+  }
+
+  /**
+   * Gets the amount of stored non-zero values
+   *
+   * @return Returns the amount of stored non-zero values
+   */
+  public int nonZeros() {
+    return nonZeros;
+  }
+
+  /**
+   * Gets the backing index array of this vector without copying it,
+   * where only the first {@link #nonZeros()} indices are part of the vector
+   *
+   * @return Returns the backing index array
+   */
+  public int[] indices() {
+    return indices;
+  }
+
+  /**
+   * Gets the backing value array of this vector without copying it,
+   * where only the first {@link #nonZeros()} values are part of the vector
+   *
+   * @return Returns the backing value array
+   */
+  public double[] data() {
+    return data;
+  }
+
+  @Override
+  public boolean sparse() {
+    return true;
+  }
+
+  @Override
+  public double get(int index) {
+    checkIndex(index);
+    int k = Arrays.binarySearch(indices, 0, nonZeros, index);
+    return k >= 0 ? data[k] : 0.0;
+  }
+
+  @Override
+  public ContextVector addValueToVector(double value) {
+    if (value != 0.0)
+      append(dimension, value);
+    dimension++;
+    dense = null;
+    return this;
+  }
+
+  @Override
+  public ContextVector addValuesToVector(double... values) {
+    for (double value : values)
+      addValueToVector(value);
+    return this;
+  }
+
+  @Override
+  public ContextVector cut(int from, int to) {
+    if (from < 0 || to > dimension || from > to)
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of bounds for dimension " + dimension);
+
+    SparseContextVector cut = new SparseContextVector(to - from);
+    int start = lowerBound(from);
+    for (int k = start; k < nonZeros && indices[k] < to; k++)
+      cut.append(indices[k] - from, data[k]);
+    return cut;
+  }
+
+  @Override
+  public ContextVector modify(int index, double value) {
+    checkIndex(index);
+    int k = Arrays.binarySearch(indices, 0, nonZeros, index);
+    if (k >= 0) {
+      if (value != 0.0)
+        data[k] = value;
+      else
+        remove(k);
+    } else if (value != 0.0)
+      insert(-k - 1, index, value);
+    dense = null;
+    return this;
+  }
+
+  @Override
+  public ContextVector multiply(int index, double value) {
+    return modify(index, get(index) * value);
+  }
+
+  @Override
+  public ContextVector divide(int index, double value) {
+    return modify(index, get(index) / value);
+  }
+
+  @Override
+  public ContextVector add(int index, double value) {
+    return modify(index, get(index) + value);
+  }
+
+  @Override
+  public ContextVector subtract(int index, double value) {
+    return modify(index, get(index) - value);
+  }
+
+  @Override
+  public ContextVector merge(ContextVector context) {
+    if (context.dimension() != dimension())
+      throw new IllegalStateException("Dimension of node x and y must be equal");
+
+    combine(context, dimension, false);
+    return this;
+  }
+
+  @Override
+  public ContextVector agglutinate(ContextVector context) {
+    if (context.dimension() > dimension())
+      throw new IllegalStateException("Dimension of node y cannot exceed node x");
+
+    combine(context, context.dimension(), true);
+    return this;
+  }
+
+  /**
+   * Combines the given vector into this vector, in time proportional to the non-zero values of both
+   * when the given vector is sparse
+   *
+   * @param context The vector to combine with
+   * @param length The amount of dimensions to combine
+   * @param average Whether to average the values rather than summing them
+   */
+  private void combine(ContextVector context, int length, boolean average) {
+    SparseContextVector y = context instanceof SparseContextVector
+      ? (SparseContextVector) context
+      : SparseContextVector.of(context);
+
+    int capacity = nonZeros + y.nonZeros;
+    int[] mergedIndices = new int[capacity];
+    double[] mergedData = new double[capacity];
+    int n = 0;
+    int a = 0;
+    int b = 0;
+    while (a < nonZeros || (b < y.nonZeros && y.indices[b] < length)) {
+      int ia = a < nonZeros ? indices[a] : Integer.MAX_VALUE;
+      int ib = b < y.nonZeros && y.indices[b] < length ? y.indices[b] : Integer.MAX_VALUE;
+      double value;
+      int index;
+      if (ia == ib) {
+        index = ia;
+        value = average ? (data[a++] + y.data[b++]) / 2 : data[a++] + y.data[b++];
+      } else if (ia < ib) {
+        index = ia;
+        value = average && ia < length ? data[a] / 2 : data[a];
+        a++;
+      } else {
+        index = ib;
+        value = average ? y.data[b] / 2 : y.data[b];
+        b++;
+      }
+
+      if (value != 0.0) {
+        mergedIndices[n] = index;
+        mergedData[n++] = value;
+      }
+    }
+
+    indices = mergedIndices;
+    data = mergedData;
+    nonZeros = n;
+    dense = null;
+  }
+
+  @Override
+  public double cosine(ContextVector y) {
+    if (y.dimension() < dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
+
+    if (y instanceof SparseContextVector) {
+      SparseContextVector other = (SparseContextVector) y;
+      return cosine(dot(other), sumOfSquares(dimension), other.sumOfSquares(dimension));
+    }
+
+    return cosine(y.values(), dimension);
+  }
+
+  /**
+   * Performs cosine similarity on the first dimensions of a dense array
+   *
+   * @param y The dense array
+   * @param length The amount of dimensions
+   * @return Returns the cosine similarity
+   */
+  double cosine(double[] y, int length) {
+    return cosine(
+      dot(y, length),
+      sumOfSquares(length),
+      VectorKernels.active().sumOfSquares(y, 0, length)
+    );
+  }
+
+  private static double cosine(double dotProduct, double normX, double normY) {
+    double magnitudeX = Math.sqrt(normX);
+    double magnitudeY = Math.sqrt(normY);
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  @Override
+  public double dot(ContextVector y) {
+    if (y.dimension() < dimension())
+      throw new IllegalStateException("Dimension of node y cannot be less than node x");
+
+    if (y instanceof SparseContextVector)
+      return dot((SparseContextVector) y);
+    return dot(y.values(), dimension);
+  }
+
+  private double dot(SparseContextVector y) {
+    double dot = 0.0;
+    int a = 0;
+    int b = 0;
+    while (a < nonZeros && b < y.nonZeros) {
+      int ia = indices[a];
+      int ib = y.indices[b];
+      if (ia == ib)
+        dot += data[a++] * y.data[b++];
+      else if (ia < ib)
+        a++;
+      else
+        b++;
+    }
+    return dot;
+  }
+
+  /**
+   * Performs the dot product on the first dimensions of a dense array
+   *
+   * @param y The dense array
+   * @param length The amount of dimensions
+   * @return Returns the dot product
+   */
+  double dot(double[] y, int length) {
+    double dot = 0.0;
+    for (int k = 0; k < nonZeros && indices[k] < length; k++)
+      dot += data[k] * y[indices[k]];
+    return dot;
+  }
+
+  /**
+   * Sums the squares of the values below the given index
+   */
+  private double sumOfSquares(int length) {
+    double sum = 0.0;
+    for (int k = 0; k < nonZeros && indices[k] < length; k++)
+      sum += data[k] * data[k];
+    return sum;
+  }
+
+  /**
+   * Adds the values of this vector to the given dense array
+   *
+   * @param y The dense array to add the values to
+   */
+  void scatterAdd(double[] y) {
+    for (int k = 0; k < nonZeros; k++)
+      y[indices[k]] += data[k];
+  }
+
+  /**
+   * Averages the given dense array with this vector, {@code y[i] = (y[i] + x[i]) / 2}
+   *
+   * @param y The dense array to average
+   */
+  void averageInto(double[] y) {
+    int k = 0;
+    for (int i = 0; i < dimension; i++) {
+      double x = k < nonZeros && indices[k] == i ? data[k++] : 0.0;
+      y[i] = (y[i] + x) / 2;
+    }
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Gets a dense view of this vector, which is cached until the vector is modified
+   *
+   * @return Returns the dense values of this vector
+   */
+  @Override
+  public double[] values() {
+    double[] values = dense;
+    if (values == null) {
+      values = new double[dimension];
+      for (int k = 0; k < nonZeros; k++)
+        values[indices[k]] = data[k];
+      dense = values;
+    }
+    return values;
+  }
+
+  @Override
+  public double magnitude() {
+    return Math.sqrt(sumOfSquares(dimension));
+  }
+
+  @Override
+  public ContextVector assign(ContextVector context) {
+    SparseContextVector y = SparseContextVector.of(context);
+    dimension = y.dimension;
+    indices = y.indices;
+    data = y.data;
+    nonZeros = y.nonZeros;
+    dense = null;
+    return this;
+  }
+
+  @Override
+  public ContextVector assign(double[] values, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > values.length)
+      throw new IndexOutOfBoundsException("Range " + offset + " to " + (offset + length) + " is out of bounds for length " + values.length);
+
+    return assign(new ContextVector(Arrays.copyOfRange(values, offset, offset + length)));
+  }
+
+  @Override
+  public ContextVector resize(int dimension) {
+    if (dimension < 0)
+      throw new IllegalArgumentException("Dimension cannot be negative");
+
+    nonZeros = lowerBound(dimension);
+    this.dimension = dimension;
+    dense = null;
+    return this;
+  }
+
+  @Override
+  public void copyInto(double[] destination, int offset) {
+    Arrays.fill(destination, offset, offset + dimension, 0.0);
+    for (int k = 0; k < nonZeros; k++)
+      destination[offset + indices[k]] = data[k];
+  }
+
+  @Override
+  public double[] transform() {
+    return values().clone();
+  }
+
+  @Override
+  public List<Double> normalize(List<Double> features) {
+    List<Double> normalized = new ArrayList<>();
+    for (int i = 0; i < features.size() && i < dimension; i++) {
+      double x = get(i);
+      normalized.add((features.get(i) - x) / x);
+    }
+    return normalized;
+  }
+
+  @Override
+  public SparseContextVector copy() {
+    SparseContextVector copy = new SparseContextVector(dimension);
+    copy.indices = Arrays.copyOf(indices, nonZeros);
+    copy.data = Arrays.copyOf(data, nonZeros);
+    copy.nonZeros = nonZeros;
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    return "SparseContextVector{" +
+      "dimension=" + dimension +
+      ", indices=" + Arrays.toString(Arrays.copyOf(indices, nonZeros)) +
+      ", values=" + Arrays.toString(Arrays.copyOf(data, nonZeros)) +
+      '}';
+  }
+
+  /**
+   * Adds the given value at the given index, keeping the storage for reuse
+   *
+   * @param index The index to add the value at
+   * @param value The value to add
+   */
+  void accumulate(int index, double value) {
+    int k = Arrays.binarySearch(indices, 0, nonZeros, index);
+    if (k >= 0)
+      data[k] += value;
+    else
+      insert(-k - 1, index, value);
+    dense = null;
+  }
+
+  /**
+   * Removes every value, keeping the storage for reuse
+   */
+  void clear() {
+    nonZeros = 0;
+    dense = null;
+  }
+
+  private void append(int index, double value) {
+    insert(nonZeros, index, value);
+  }
+
+  private void insert(int position, int index, double value) {
+    if (nonZeros == indices.length) {
+      int capacity = Math.max(8, nonZeros + (nonZeros >> 1));
+      indices = Arrays.copyOf(indices, capacity);
+      data = Arrays.copyOf(data, capacity);
+    }
+
+    System.arraycopy(indices, position, indices, position + 1, nonZeros - position);
+    System.arraycopy(data, position, data, position + 1, nonZeros - position);
+    indices[position] = index;
+    data[position] = value;
+    nonZeros++;
+    dense = null;
+  }
+
+  private void remove(int position) {
+    System.arraycopy(indices, position + 1, indices, position, nonZeros - position - 1);
+    System.arraycopy(data, position + 1, data, position, nonZeros - position - 1);
+    nonZeros--;
+  }
+
+  /**
+   * Gets the position of the first stored index not below the given index
+   */
+  private int lowerBound(int index) {
+    int k = Arrays.binarySearch(indices, 0, nonZeros, index);
+    return k >= 0 ? k : -k - 1;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= dimension)
+      throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for dimension " + dimension);
+  }
+
+}
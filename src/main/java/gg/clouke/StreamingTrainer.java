@@ -0,0 +1,442 @@
+package gg.clouke;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Trains a {@link ShapingNetwork} from an unbounded stream of items with bounded demand.
+ * <p>
+ * Items pass through three stages: worker threads decode each item into a {@link TrainingSample},
+ * scale it with an optional {@link FeatureNormalizer}, and collect it into a batch for its target,
+ * which is fed to the network once full or once the stream goes quiet. The trainer never requests more items
+ * than its buffer holds, and once more samples than {@code maxBatched} are batched across all targets, the largest batch is fed early.
+ * So at most {@code bufferSize + maxBatched} items wait at once, plus the item or batch each worker has at hand,
+ * however fast the stream bursts and however many targets the network has.
+ * <p>
+ * Only the raw items and the fed batches are buffered. Decoding and normalizing are fused into one step of the worker
+ * which took the item, since both are short computations on a single item which never wait, and a queue between them
+ * would only add a hand-off per item. The per-target batches are the buffer in front of the network:
+ * while one worker feeds a batch, the others keep decoding into theirs.
+ * <p>
+ * The trainer follows the subscriber side of the reactive streams contract without depending on it:
+ * {@link #onSubscribe(LongConsumer, Runnable)} receives the demand and cancellation callbacks of the upstream,
+ * which are never called concurrently, although any worker may request more items or cancel.
+ * On Java 17 or later, {@link #flowSubscriber()} adapts it to a {@code java.util.concurrent.Flow.Subscriber}.
+ * Samples of different targets are fed in parallel when the network is {@link ShapingNetworkBuilder#concurrent(boolean) concurrent},
+ * and one batch at a time otherwise.
+ *
+ * @param <T> The type of the streamed items
+ * @author Clouke
+ * @since 18.10.2026 23:40
+ * © shape-network - All Rights Reserved
+ */
+public final class StreamingTrainer<T> {
+
+  private static final long IDLE_FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final ShapingNetwork network;
+  private final Function<? super T, TrainingSample> decoder;
+  private final FeatureNormalizer normalizer;
+  private final int bufferSize;
+  private final int batchSize;
+  private final int maxBatched;
+  private final int parallelism;
+
+  private final BlockingQueue<T> buffer;
+  private final ConcurrentHashMap<Integer, List<TrainingSample>> batches = new ConcurrentHashMap<>();
+  private final Object feedLock = new Object();
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final AtomicLong replenish = new AtomicLong();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger signals = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger batched = new AtomicInteger();
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private volatile LongConsumer request;
+  private volatile Runnable cancel;
+  private volatile boolean cancelUpstream;
+  private boolean upstreamCancelled; // only accessed by the thread draining the signals
+  private volatile boolean done;
+  private volatile boolean cancelled;
+  private volatile Throwable failure;
+  private volatile long started;
+
+  private final LongAdder received = new LongAdder();
+  private final LongAdder fed = new LongAdder();
+  private final LongAdder skipped = new LongAdder();
+
+  StreamingTrainer(ShapingNetwork network, Function<? super T, TrainingSample> decoder, FeatureNormalizer normalizer,
+                   int bufferSize, int batchSize, int maxBatched, int parallelism) {
+    this.network = network;
+    this.decoder = decoder;
+    this.normalizer = normalizer;
+    this.bufferSize = bufferSize;
+    this.batchSize = batchSize;
+    this.maxBatched = maxBatched;
+    this.parallelism = parallelism;
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+  }
+
+  /**
+   * Starts the workers and requests the first items.
+   * A trainer only trains from one upstream, so any further subscription, or one after {@link #cancel()}, is cancelled right away.
+   *
+   * @param request Requests the given amount of further items from the upstream
+   * @param cancel Cancels the upstream
+   */
+  public void onSubscribe(LongConsumer request, Runnable cancel) {
+    if (!subscribed.compareAndSet(false, true)) {
+      cancel.run();
+      return;
+    }
+
+    this.request = request;
+    this.cancel = cancel;
+    this.started = System.nanoTime();
+    running.set(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      Thread worker = new Thread(this::work, "shape-network-trainer-" + (i + 1));
+      worker.setDaemon(true);
+      worker.start();
+    }
+    requestUpstream(bufferSize); // also cancels the upstream if cancel() was called while subscribing
+  }
+
+  /**
+   * Buffers the given item until a worker takes it
+   *
+   * @param item The streamed item
+   */
+  public void onNext(T item) {
+    if (cancelled)
+      return; // items may still arrive after cancelling the upstream
+    received.increment();
+    if (!buffer.offer(item)) {
+      // only happens when the upstream ignores the demand
+      cancelUpstream();
+      onError(new IllegalStateException("Upstream exceeded the requested demand"));
+    }
+  }
+
+  /**
+   * Stops training once the buffered items are fed, and fails the completion with the given error
+   *
+   * @param throwable The error of the upstream
+   */
+  public void onError(Throwable throwable) {
+    failure = throwable;
+    done = true;
+  }
+
+  /**
+   * Stops training once the buffered items are fed
+   */
+  public void onComplete() {
+    done = true;
+  }
+
+  /**
+   * Cancels the upstream and stops the workers once they finished the item at hand.
+   * The items still buffered are dropped, the samples already batched are fed,
+   * and the completion then fails with a {@link CancellationException}.
+   */
+  public void cancel() {
+    if (cancelled)
+      return;
+
+    cancelled = true;
+    done = true;
+    if (subscribed.compareAndSet(false, true)) {
+      completion.completeExceptionally(new CancellationException("Trainer was cancelled")); // no workers were started
+      return;
+    }
+
+    cancelUpstream();
+    buffer.clear();
+  }
+
+  /**
+   * Adapts this trainer to a {@code java.util.concurrent.Flow.Subscriber<T>}, so it can subscribe to any {@code Flow.Publisher}.
+   * The subscriber is only shipped in the JDK 17 release of the multi-release jar, so its type is inferred from the call site,
+   * e.g. {@code publisher.subscribe(trainer.flowSubscriber())}
+   *
+   * @param <S> The type of the subscriber, {@code Flow.Subscriber<T>}
+   * @return Returns a subscriber passing its signals to this trainer
+   * @throws IllegalStateException if the running JDK is older than 17
+   */
+  @SuppressWarnings("unchecked")
+  public <S> S flowSubscriber() {
+    try {
+      Class<?> type = Class.forName("gg.clouke.FlowTrainer");
+      return (S) type.getDeclaredConstructor(StreamingTrainer.class).newInstance(this);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new IllegalStateException("Flow subscribers require Java 17 or later", e);
+    }
+  }
+
+  private void work() {
+    try {
+      while (!cancelled) {
+        T item = buffer.poll(IDLE_FLUSH_NANOS, TimeUnit.NANOSECONDS);
+        if (item == null) {
+          if (done && buffer.isEmpty())
+            break;
+          flush(); // the stream went quiet, so the partial batches are fed
+          continue;
+        }
+
+        taken();
+        process(item);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      failure = e;
+      done = true;
+      cancelUpstream();
+    } finally {
+      if (running.decrementAndGet() == 0)
+        finish();
+    }
+  }
+
+  /**
+   * Requests as many items as the workers took, once they took half of the buffer
+   */
+  private void taken() {
+    if (replenish.incrementAndGet() < Math.max(1, bufferSize / 2))
+      return;
+
+    long n = replenish.getAndSet(0);
+    if (n > 0 && !done)
+      requestUpstream(n);
+  }
+
+  private void requestUpstream(long n) {
+    demand.addAndGet(n);
+    drainSignals();
+  }
+
+  private void cancelUpstream() {
+    cancelUpstream = true;
+    drainSignals();
+  }
+
+  /**
+   * Passes the pending demand or cancellation to the upstream from one thread at a time.
+   * A thread signalling while another one drains leaves its signal to that thread, so no caller blocks,
+   * and a signal sent from within the upstream callbacks is passed on once they return.
+   */
+  private void drainSignals() {
+    if (signals.getAndIncrement() != 0)
+      return;
+
+    int missed = 1;
+    do {
+      LongConsumer upstreamRequest = request;
+      Runnable upstreamCancel = cancel;
+      if (upstreamCancel != null && !upstreamCancelled) { // the callbacks are only set once subscribed
+        if (cancelUpstream) {
+          upstreamCancelled = true;
+          demand.set(0);
+          upstreamCancel.run();
+        } else {
+          long n = demand.getAndSet(0);
+          if (n > 0)
+            upstreamRequest.accept(n);
+        }
+      }
+      missed = signals.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void process(T item) {
+    TrainingSample sample;
+    try {
+      sample = decoder.apply(item);
+    } catch (RuntimeException e) {
+      sample = null;
+    }
+    if (sample == null) {
+      skipped.increment();
+      return;
+    }
+
+    if (normalizer != null)
+      normalizer.apply(sample.vector());
+
+    List<TrainingSample> full = null;
+    List<TrainingSample> batch = batches.computeIfAbsent(sample.target(), k -> new ArrayList<>(batchSize));
+    synchronized (batch) {
+      batch.add(sample);
+      batched.incrementAndGet();
+      if (batch.size() >= batchSize)
+        full = take(batch);
+    }
+
+    if (full != null)
+      feed(full);
+    else if (batched.get() > maxBatched)
+      flushLargest(); // many targets hold partial batches, so the fullest one is fed early
+  }
+
+  private void flush() {
+    for (List<TrainingSample> batch : batches.values()) {
+      List<TrainingSample> pending;
+      synchronized (batch) {
+        if (batch.isEmpty())
+          continue;
+        pending = take(batch);
+      }
+      feed(pending);
+    }
+  }
+
+  private void flushLargest() {
+    List<TrainingSample> largest = null;
+    int size = 0;
+    for (List<TrainingSample> batch : batches.values()) {
+      synchronized (batch) {
+        if (batch.size() > size) {
+          largest = batch;
+          size = batch.size();
+        }
+      }
+    }
+    if (largest == null)
+      return;
+
+    List<TrainingSample> pending;
+    synchronized (largest) {
+      if (largest.isEmpty())
+        return; // fed by another worker meanwhile
+      pending = take(largest);
+    }
+    feed(pending);
+  }
+
+  /**
+   * Removes the samples of the given batch, which must be locked by the caller
+   */
+  private List<TrainingSample> take(List<TrainingSample> batch) {
+    List<TrainingSample> samples = new ArrayList<>(batch);
+    batch.clear();
+    batched.addAndGet(-samples.size());
+    return samples;
+  }
+
+  private void feed(List<TrainingSample> samples) {
+    if (network.concurrent()) {
+      for (TrainingSample sample : samples)
+        network.feed(sample.vector(), sample.target());
+    } else {
+      synchronized (feedLock) {
+        for (TrainingSample sample : samples)
+          network.feed(sample.vector(), sample.target());
+      }
+    }
+    fed.add(samples.size());
+  }
+
+  private void finish() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      if (failure == null)
+        failure = e;
+    }
+
+    if (failure != null)
+      completion.completeExceptionally(failure);
+    else if (cancelled)
+      completion.completeExceptionally(new CancellationException("Trainer was cancelled"));
+    else
+      completion.complete(null);
+  }
+
+  /**
+   * Gets a future which completes once the stream ended and every sample was fed
+   *
+   * @return Returns the completion of this trainer
+   */
+  public CompletableFuture<Void> completion() {
+    return completion;
+  }
+
+  /**
+   * Gets the amount of items received from the upstream
+   *
+   * @return Returns the amount of received items
+   */
+  public long received() {
+    return received.sum();
+  }
+
+  /**
+   * Gets the amount of samples fed to the network
+   *
+   * @return Returns the amount of fed samples
+   */
+  public long fed() {
+    return fed.sum();
+  }
+
+  /**
+   * Gets the amount of items which could not be decoded
+   *
+   * @return Returns the amount of skipped items
+   */
+  public long skipped() {
+    return skipped.sum();
+  }
+
+  /**
+   * Gets the amount of received items which are not fed yet
+   *
+   * @return Returns the lag of this trainer
+   */
+  public long lag() {
+    return Math.max(0, received() - fed() - skipped());
+  }
+
+  /**
+   * Gets the amount of decoded samples waiting in partial batches
+   *
+   * @return Returns the amount of batched samples
+   */
+  public int batched() {
+    return batched.get();
+  }
+
+  /**
+   * Gets the amount of items waiting to be decoded
+   *
+   * @return Returns the amount of buffered items
+   */
+  public int buffered() {
+    return buffer.size();
+  }
+
+  /**
+   * Gets the average amount of samples fed per second since the trainer was subscribed
+   *
+   * @return Returns the throughput of this trainer
+   */
+  public double throughput() {
+    long elapsed = System.nanoTime() - started;
+    return started == 0 || elapsed <= 0 ? 0.0 : fed() * 1e9 / elapsed;
+  }
+
+}
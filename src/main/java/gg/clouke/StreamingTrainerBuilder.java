@@ -0,0 +1,106 @@
+package gg.clouke;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A builder class for {@link StreamingTrainer}
+ *
+ * @param <T> The type of the streamed items
+ * @author Clouke
+ * @since 18.10.2026 23:40
+ * © shape-network - All Rights Reserved
+ */
+public class StreamingTrainerBuilder<T> {
+
+  private final ShapingNetwork network;
+  private final Function<? super T, TrainingSample> decoder;
+  private FeatureNormalizer normalizer;
+  private int parallelism = 1;
+  private int bufferSize = 1024;
+  private int batchSize = 32;
+  private int maxBatched = -1;
+
+  /**
+   * @param network The network to train
+   * @param decoder Decodes each item into a sample, returning null for items which should be skipped
+   */
+  public StreamingTrainerBuilder(ShapingNetwork network, Function<? super T, TrainingSample> decoder) {
+    this.network = Objects.requireNonNull(network, "Network cannot be null");
+    this.decoder = Objects.requireNonNull(decoder, "Decoder cannot be null");
+  }
+
+  /**
+   * Sets the normalizer scaling each decoded sample in place before it is fed
+   *
+   * @param normalizer The normalizer to apply
+   * @return Returns this trainer builder for chaining
+   */
+  public StreamingTrainerBuilder<T> normalizer(FeatureNormalizer normalizer) {
+    this.normalizer = normalizer;
+    return this;
+  }
+
+  /**
+   * Sets the amount of threads decoding and feeding the items
+   *
+   * @param parallelism The amount of worker threads
+   * @return Returns this trainer builder for chaining
+   */
+  public StreamingTrainerBuilder<T> parallelism(int parallelism) {
+    if (parallelism <= 0)
+      throw new IllegalArgumentException("Parallelism must be positive");
+
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Sets the amount of items which may be requested but not yet decoded
+   *
+   * @param bufferSize The size of the buffer
+   * @return Returns this trainer builder for chaining
+   */
+  public StreamingTrainerBuilder<T> bufferSize(int bufferSize) {
+    if (bufferSize <= 0)
+      throw new IllegalArgumentException("Buffer size must be positive");
+
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  /**
+   * Sets the amount of samples of a target which are collected before they are fed together
+   *
+   * @param batchSize The size of a batch
+   * @return Returns this trainer builder for chaining
+   */
+  public StreamingTrainerBuilder<T> batchSize(int batchSize) {
+    if (batchSize <= 0)
+      throw new IllegalArgumentException("Batch size must be positive");
+
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Sets the amount of samples which may wait in partial batches across all targets, before the largest batch is fed early.
+   * Without it, the memory held by the batches would grow with the amount of targets. Defaults to the buffer size
+   *
+   * @param maxBatched The amount of batched samples
+   * @return Returns this trainer builder for chaining
+   */
+  public StreamingTrainerBuilder<T> maxBatched(int maxBatched) {
+    if (maxBatched <= 0)
+      throw new IllegalArgumentException("Max batched samples must be positive");
+
+    this.maxBatched = maxBatched;
+    return this;
+  }
+
+  public StreamingTrainer<T> build() {
+    int batchLimit = maxBatched > 0 ? maxBatched : bufferSize;
+    return new StreamingTrainer<>(network, decoder, normalizer, bufferSize, batchSize, batchLimit, parallelism);
+  }
+
+}
@@ -0,0 +1,42 @@
+package gg.clouke;
+
+/**
+ * An input vector labelled with the attribute target it trains
+ *
+ * @author Clouke
+ * @since 18.10.2026 23:40
+ * © shape-network - All Rights Reserved
+ */
+public final class TrainingSample {
+
+  private final ContextVector vector;
+  private final int target;
+
+  /**
+   * @param vector The input vector
+   * @param target The attribute target of the input
+   */
+  public TrainingSample(ContextVector vector, int target) {
+    this.vector = vector;
+    this.target = target;
+  }
+
+  /**
+   * Gets the input vector of this sample
+   *
+   * @return Returns the input vector
+   */
+  public ContextVector vector() {
+    return vector;
+  }
+
+  /**
+   * Gets the attribute target of this sample
+   *
+   * @return Returns the attribute target
+   */
+  public int target() {
+    return target;
+  }
+
+}
@@ -0,0 +1,196 @@
+package gg.clouke;
+
+/**
+ * The numeric kernels behind {@link ContextVector}, {@link Shapes} and {@link CompiledNetwork}.
+ * <p>
+ * A scalar implementation is always available. On JDK 17+ the multi-release jar also ships
+ * a SIMD implementation built on {@code jdk.incubator.vector}, which is selected at runtime
+ * when the module is resolved ({@code --add-modules jdk.incubator.vector}).
+ * The scalar path can be forced with {@code -Dgg.clouke.kernels=scalar} or {@link #use(VectorKernels)}.
+ * <p>
+ * Element-wise kernels give bit-for-bit equal results on every implementation,
+ * whereas reductions ({@link #dot}, {@link #sumOfSquares}, {@link #cosine}) may differ in rounding.
+ *
+ * @author Clouke
+ * @since 18.10.2026 14:05
+ * © shape-network - All Rights Reserved
+ */
+public interface VectorKernels {
+
+  /**
+   * Gets the kernels currently used by the network
+   *
+   * @return Returns the active kernels
+   */
+  static VectorKernels active() {
+    return Selection.active;
+  }
+
+  /**
+   * Replaces the kernels used by the network, e.g. to compare against the scalar path
+   *
+   * @param kernels The kernels to use
+   */
+  static void use(VectorKernels kernels) {
+    if (kernels == null)
+      throw new NullPointerException("Kernels cannot be null");
+    Selection.active = kernels;
+  }
+
+  /**
+   * Gets the scalar kernels, which are available on every JDK
+   *
+   * @return Returns the scalar kernels
+   */
+  static VectorKernels scalar() {
+    return ScalarVectorKernels.INSTANCE;
+  }
+
+  /**
+   * Gets the SIMD kernels if they are supported by the running JDK
+   *
+   * @return Returns the SIMD kernels, or null if they are unavailable
+   */
+  static VectorKernels simd() {
+    return Selection.SIMD;
+  }
+
+  /**
+   * Gets the name of this implementation
+   *
+   * @return Returns the name of this implementation
+   */
+  String name();
+
+  /**
+   * Computes the dot product of two ranges
+   *
+   * @param x The first array
+   * @param xOffset The offset of the first range
+   * @param y The second array
+   * @param yOffset The offset of the second range
+   * @param length The length of the ranges
+   * @return Returns the dot product
+   */
+  double dot(double[] x, int xOffset, double[] y, int yOffset, int length);
+
+  /**
+   * Computes the integer dot product of two byte ranges,
+   * which must be short enough for the sum to fit an int
+   *
+   * @param x The first array
+   * @param xOffset The offset of the first range
+   * @param y The second array
+   * @param yOffset The offset of the second range
+   * @param length The length of the ranges
+   * @return Returns the dot product
+   */
+  int dot(byte[] x, int xOffset, byte[] y, int yOffset, int length);
+
+  /**
+   * Accumulates the dot products of one weight row with several input rows,
+   * {@code out[outOffset + k * outStride] += dot(w[wOffset..], x[xOffset + k * xStride..])}.
+   * The weight row is loaded once for all input rows.
+   *
+   * @param w The weight array
+   * @param wOffset The offset of the weight row
+   * @param x The input array
+   * @param xOffset The offset of the first input row
+   * @param xStride The distance between two input rows
+   * @param count The amount of input rows
+   * @param length The length of the rows
+   * @param out The array to accumulate the dot products into
+   * @param outOffset The offset of the first dot product
+   * @param outStride The distance between two dot products
+   */
+  void accumulateDots(double[] w, int wOffset, double[] x, int xOffset, int xStride, int count, int length,
+                      double[] out, int outOffset, int outStride);
+
+  /**
+   * Computes the sum of the squares of a range
+   *
+   * @param x The array
+   * @param offset The offset of the range
+   * @param length The length of the range
+   * @return Returns the sum of the squares
+   */
+  double sumOfSquares(double[] x, int offset, int length);
+
+  /**
+   * Computes the cosine similarity of two vectors in a single pass
+   *
+   * @param x The first vector
+   * @param y The second vector
+   * @param length The dimension of the vectors
+   * @return Returns the cosine similarity, or 0 if either vector has no length
+   */
+  double cosine(double[] x, double[] y, int length);
+
+  /**
+   * Computes {@code x[i] += y[i]}
+   */
+  void add(double[] x, double[] y, int length);
+
+  /**
+   * Computes {@code x[i] = (x[i] + y[i]) / 2}
+   */
+  void average(double[] x, double[] y, int length);
+
+  /**
+   * Computes {@code z[i] = x[i] / divisor}
+   */
+  void divide(double[] x, double divisor, double[] z, int length);
+
+  /**
+   * Computes {@code z[i] = Math.min(x[i], y[i])}
+   */
+  void min(double[] x, double[] y, double[] z, int length);
+
+  /**
+   * Computes {@code z[i] = Math.max(x[i], y[i])}
+   */
+  void max(double[] x, double[] y, double[] z, int length);
+
+  /**
+   * Computes {@code z[i] = (x[i] + Math.max(x[i], y[i])) / 2}
+   */
+  void maxMean(double[] x, double[] y, double[] z, int length);
+
+  /**
+   * Computes {@code z[i] = n / ((1 / x[i]) + (1 / y[i]))}
+   */
+  void harmonic(double[] x, double[] y, double n, double[] z, int length);
+
+  /**
+   * Computes {@code z[i] = Math.sqrt(x[i] * x[i] + y[i] * y[i])}
+   */
+  void quadratic(double[] x, double[] y, double[] z, int length);
+
+  /**
+   * Holds the selected kernels
+   */
+  final class Selection {
+
+    static final VectorKernels SIMD = loadSimd();
+    static volatile VectorKernels active = select();
+
+    private Selection() {}
+
+    private static VectorKernels select() {
+      String property = System.getProperty("gg.clouke.kernels", "auto");
+      if ("scalar".equalsIgnoreCase(property) || SIMD == null)
+        return ScalarVectorKernels.INSTANCE;
+      return SIMD;
+    }
+
+    private static VectorKernels loadSimd() {
+      try {
+        Class<?> type = Class.forName("gg.clouke.SimdVectorKernels");
+        return (VectorKernels) type.getDeclaredField("INSTANCE").get(null);
+      } catch (ReflectiveOperationException | LinkageError e) {
+        return null; // pre-17 JDK, or jdk.incubator.vector is not resolved
+      }
+    }
+  }
+
+}
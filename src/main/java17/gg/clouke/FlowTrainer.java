@@ -0,0 +1,47 @@
+package gg.clouke;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * Adapts a {@link StreamingTrainer} to a {@link Flow.Subscriber}, so it can subscribe to any {@link Flow.Publisher}.
+ * Only shipped in the JDK 17 release of the multi-release jar, so it is package-private
+ * and created through {@link StreamingTrainer#flowSubscriber()}.
+ *
+ * @param <T> The type of the streamed items
+ * @author Clouke
+ * @since 18.10.2026 23:40
+ * © shape-network - All Rights Reserved
+ */
+final class FlowTrainer<T> implements Flow.Subscriber<T> {
+
+  private final StreamingTrainer<T> trainer;
+
+  /**
+   * @param trainer The trainer receiving the items
+   */
+  FlowTrainer(StreamingTrainer<T> trainer) {
+    this.trainer = Objects.requireNonNull(trainer, "Trainer cannot be null");
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    trainer.onSubscribe(subscription::request, subscription::cancel);
+  }
+
+  @Override
+  public void onNext(T item) {
+    trainer.onNext(item);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    trainer.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    trainer.onComplete();
+  }
+
+}
@@ -0,0 +1,265 @@
+package gg.clouke;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD {@link VectorKernels}, built on {@code jdk.incubator.vector}.
+ * Only shipped in the JDK 17 release of the multi-release jar.
+ *
+ * @author Clouke
+ * @since 18.10.2026 14:05
+ * © shape-network - All Rights Reserved
+ */
+final class SimdVectorKernels implements VectorKernels {
+
+  static final SimdVectorKernels INSTANCE = new SimdVectorKernels();
+
+  private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+  // as many bytes as there are int lanes, so a load widens into exactly one int vector
+  private static final VectorSpecies<Byte> B = VectorSpecies.of(byte.class, VectorShape.forBitSize(I.length() * Byte.SIZE));
+
+  private SimdVectorKernels() {}
+
+  @Override
+  public String name() {
+    return "simd-" + S.vectorBitSize();
+  }
+
+  @Override
+  public double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    DoubleVector acc = DoubleVector.zero(S);
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = DoubleVector.fromArray(S, x, xOffset + i);
+      DoubleVector b = DoubleVector.fromArray(S, y, yOffset + i);
+      acc = a.fma(b, acc);
+    }
+
+    double dot = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++)
+      dot += x[xOffset + i] * y[yOffset + i];
+    return dot;
+  }
+
+  @Override
+  public int dot(byte[] x, int xOffset, byte[] y, int yOffset, int length) {
+    IntVector acc = IntVector.zero(I);
+    int i = 0;
+    for (int bound = B.loopBound(length); i < bound; i += B.length()) {
+      IntVector a = (IntVector) ByteVector.fromArray(B, x, xOffset + i).convertShape(VectorOperators.B2I, I, 0);
+      IntVector b = (IntVector) ByteVector.fromArray(B, y, yOffset + i).convertShape(VectorOperators.B2I, I, 0);
+      acc = a.mul(b).add(acc);
+    }
+
+    int dot = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++)
+      dot += x[xOffset + i] * y[yOffset + i];
+    return dot;
+  }
+
+  @Override
+  public void accumulateDots(double[] w, int wOffset, double[] x, int xOffset, int xStride, int count, int length,
+                             double[] out, int outOffset, int outStride) {
+    int bound = S.loopBound(length);
+    int k = 0;
+    for (; k + 3 < count; k += 4) {
+      int x0 = xOffset + k * xStride, x1 = x0 + xStride, x2 = x1 + xStride, x3 = x2 + xStride;
+      DoubleVector s0 = DoubleVector.zero(S);
+      DoubleVector s1 = DoubleVector.zero(S);
+      DoubleVector s2 = DoubleVector.zero(S);
+      DoubleVector s3 = DoubleVector.zero(S);
+      int i = 0;
+      for (; i < bound; i += S.length()) {
+        DoubleVector wi = DoubleVector.fromArray(S, w, wOffset + i);
+        s0 = wi.fma(DoubleVector.fromArray(S, x, x0 + i), s0);
+        s1 = wi.fma(DoubleVector.fromArray(S, x, x1 + i), s1);
+        s2 = wi.fma(DoubleVector.fromArray(S, x, x2 + i), s2);
+        s3 = wi.fma(DoubleVector.fromArray(S, x, x3 + i), s3);
+      }
+
+      double d0 = s0.reduceLanes(VectorOperators.ADD);
+      double d1 = s1.reduceLanes(VectorOperators.ADD);
+      double d2 = s2.reduceLanes(VectorOperators.ADD);
+      double d3 = s3.reduceLanes(VectorOperators.ADD);
+      for (; i < length; i++) {
+        double wi = w[wOffset + i];
+        d0 += wi * x[x0 + i];
+        d1 += wi * x[x1 + i];
+        d2 += wi * x[x2 + i];
+        d3 += wi * x[x3 + i];
+      }
+
+      int t0 = outOffset + k * outStride;
+      out[t0] += d0;
+      out[t0 + outStride] += d1;
+      out[t0 + 2 * outStride] += d2;
+      out[t0 + 3 * outStride] += d3;
+    }
+
+    for (; k < count; k++)
+      out[outOffset + k * outStride] += dot(w, wOffset, x, xOffset + k * xStride, length);
+  }
+
+  @Override
+  public double sumOfSquares(double[] x, int offset, int length) {
+    DoubleVector acc = DoubleVector.zero(S);
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = DoubleVector.fromArray(S, x, offset + i);
+      acc = a.fma(a, acc);
+    }
+
+    double sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++)
+      sum += x[offset + i] * x[offset + i];
+    return sum;
+  }
+
+  @Override
+  public double cosine(double[] x, double[] y, int length) {
+    DoubleVector dots = DoubleVector.zero(S);
+    DoubleVector normsX = DoubleVector.zero(S);
+    DoubleVector normsY = DoubleVector.zero(S);
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = DoubleVector.fromArray(S, x, i);
+      DoubleVector b = DoubleVector.fromArray(S, y, i);
+      dots = a.fma(b, dots);
+      normsX = a.fma(a, normsX);
+      normsY = b.fma(b, normsY);
+    }
+
+    double dotProduct = dots.reduceLanes(VectorOperators.ADD);
+    double normX = normsX.reduceLanes(VectorOperators.ADD);
+    double normY = normsY.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      dotProduct += x[i] * y[i];
+      normX += x[i] * x[i];
+      normY += y[i] * y[i];
+    }
+
+    double magnitudeX = Math.sqrt(normX);
+    double magnitudeY = Math.sqrt(normY);
+
+    if (magnitudeX == 0 || magnitudeY == 0)
+      return 0.0; // division by zero
+
+    return dotProduct / (magnitudeX * magnitudeY);
+  }
+
+  @Override
+  public void add(double[] x, double[] y, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length())
+      DoubleVector.fromArray(S, x, i)
+        .add(DoubleVector.fromArray(S, y, i))
+        .intoArray(x, i);
+
+    for (; i < length; i++)
+      x[i] += y[i];
+  }
+
+  @Override
+  public void average(double[] x, double[] y, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length())
+      DoubleVector.fromArray(S, x, i)
+        .add(DoubleVector.fromArray(S, y, i))
+        .div(2.0)
+        .intoArray(x, i);
+
+    for (; i < length; i++)
+      x[i] = (x[i] + y[i]) / 2;
+  }
+
+  @Override
+  public void divide(double[] x, double divisor, double[] z, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length())
+      DoubleVector.fromArray(S, x, i)
+        .div(divisor)
+        .intoArray(z, i);
+
+    for (; i < length; i++)
+      z[i] = x[i] / divisor;
+  }
+
+  @Override
+  public void min(double[] x, double[] y, double[] z, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length())
+      DoubleVector.fromArray(S, x, i)
+        .min(DoubleVector.fromArray(S, y, i))
+        .intoArray(z, i);
+
+    for (; i < length; i++)
+      z[i] = Math.min(x[i], y[i]);
+  }
+
+  @Override
+  public void max(double[] x, double[] y, double[] z, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length())
+      DoubleVector.fromArray(S, x, i)
+        .max(DoubleVector.fromArray(S, y, i))
+        .intoArray(z, i);
+
+    for (; i < length; i++)
+      z[i] = Math.max(x[i], y[i]);
+  }
+
+  @Override
+  public void maxMean(double[] x, double[] y, double[] z, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = DoubleVector.fromArray(S, x, i);
+      a.add(a.max(DoubleVector.fromArray(S, y, i)))
+        .div(2.0)
+        .intoArray(z, i);
+    }
+
+    for (; i < length; i++) {
+      double max = Math.max(x[i], y[i]);
+      z[i] = (x[i] + max) / 2;
+    }
+  }
+
+  @Override
+  public void harmonic(double[] x, double[] y, double n, double[] z, int length) {
+    int i = 0;
+    DoubleVector one = DoubleVector.broadcast(S, 1.0);
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = one.div(DoubleVector.fromArray(S, x, i));
+      DoubleVector b = one.div(DoubleVector.fromArray(S, y, i));
+      DoubleVector.broadcast(S, n)
+        .div(a.add(b))
+        .intoArray(z, i);
+    }
+
+    for (; i < length; i++)
+      z[i] = n / ((1 / x[i]) + (1 / y[i]));
+  }
+
+  @Override
+  public void quadratic(double[] x, double[] y, double[] z, int length) {
+    int i = 0;
+    for (int bound = S.loopBound(length); i < bound; i += S.length()) {
+      DoubleVector a = DoubleVector.fromArray(S, x, i);
+      DoubleVector b = DoubleVector.fromArray(S, y, i);
+      a.mul(a)
+        .add(b.mul(b))
+        .sqrt()
+        .intoArray(z, i);
+    }
+
+    for (; i < length; i++)
+      z[i] = Math.sqrt((x[i] * x[i]) + (y[i] * y[i]));
+  }
+
+}
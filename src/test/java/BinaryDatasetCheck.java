@@ -0,0 +1,192 @@
+import gg.clouke.BinaryDataset;
+import gg.clouke.BinaryDatasetWriter;
+import gg.clouke.ContextVector;
+import gg.clouke.LayerBuilder;
+import gg.clouke.RowMatrix;
+import gg.clouke.Shapes;
+import gg.clouke.ShapingNetwork;
+import gg.clouke.ShapingNetworkBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Writes datasets of both feature types and checks that every row and label reads back as written,
+ * that files which are not datasets of this version are rejected, and that shuffled epochs are reproducible from their seed.
+ *
+ * @author Clouke
+ * @since 19.10.2026 14:40
+ * © shape-network - All Rights Reserved
+ */
+public class BinaryDatasetCheck {
+
+  private static final int ROWS = 20_000;
+  private static final int DIMENSION = 24;
+  private static final int CLASSES = 4;
+
+  public static void main(String[] args) throws IOException {
+    Random random = new Random(11);
+    double[] features = new double[ROWS * DIMENSION];
+    int[] labels = new int[ROWS];
+    for (int r = 0; r < ROWS; r++) {
+      labels[r] = random.nextInt(CLASSES);
+      for (int d = 0; d < DIMENSION; d++)
+        features[r * DIMENSION + d] = random.nextGaussian() + (d % CLASSES == labels[r] ? 2.0 : 0.0);
+    }
+
+    Path path = Files.createTempFile("dataset", ".bin");
+    try {
+      for (BinaryDataset.FeatureType type : BinaryDataset.FeatureType.values()) {
+        write(path, type, features, labels);
+        roundTrip(path, type, features, labels);
+        shuffle(path);
+      }
+      foreign(path);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Writes half of the rows as a row view and the other half one vector at a time
+   */
+  private static void write(Path path, BinaryDataset.FeatureType type, double[] features, int[] labels) throws IOException {
+    try (BinaryDatasetWriter writer = new BinaryDatasetWriter(path, DIMENSION, type)) {
+      int rows = labels.length;
+      writer.write(new RowMatrix(features, 0, DIMENSION, DIMENSION, rows / 2), labels);
+      for (int r = rows / 2; r < rows; r++)
+        writer.write(new ContextVector(Arrays.copyOfRange(features, r * DIMENSION, (r + 1) * DIMENSION)), labels[r]);
+    }
+  }
+
+  private static void roundTrip(Path path, BinaryDataset.FeatureType type, double[] features, int[] labels) throws IOException {
+    BinaryDataset dataset = BinaryDataset.open(path);
+    try {
+      if (dataset.rows() != ROWS || dataset.dimension() != DIMENSION)
+        throw new IllegalStateException(type + ": dataset holds " + dataset.rows() + " rows of dimension " + dataset.dimension());
+
+      ContextVector row = ContextVector.withCapacity(DIMENSION);
+      for (int r = 0; r < ROWS; r++) {
+        dataset.row(r, row);
+        for (int d = 0; d < DIMENSION; d++) {
+          double value = features[r * DIMENSION + d];
+          double expected = type == BinaryDataset.FeatureType.FLOAT32 ? (float) value : value;
+          if (Double.doubleToLongBits(row.get(d)) != Double.doubleToLongBits(expected))
+            throw new IllegalStateException(type + ": feature " + d + " of row " + r + " differs");
+        }
+        if (dataset.label(r) != labels[r])
+          throw new IllegalStateException(type + ": label of row " + r + " differs");
+      }
+
+      RowMatrix view = dataset.rows(100, 50);
+      ContextVector viewed = ContextVector.withCapacity(DIMENSION);
+      for (int b = 0; b < view.rows(); b++)
+        if (!Arrays.equals(view.row(b, viewed).transform(), dataset.row(100 + b, row).transform()))
+          throw new IllegalStateException(type + ": viewed row " + (100 + b) + " differs");
+    } finally {
+      dataset.close();
+    }
+
+    try {
+      dataset.row(0, ContextVector.withCapacity(DIMENSION));
+      throw new IllegalStateException(type + ": a closed dataset was read");
+    } catch (IllegalStateException e) {
+      if (!"Dataset is closed".equals(e.getMessage()))
+        throw e;
+    }
+    System.out.println(type + ": " + ROWS + " rows read back as written");
+  }
+
+  /**
+   * Checks that an epoch is a permutation which only depends on its seed, so training on it is reproducible
+   */
+  private static void shuffle(Path path) throws IOException {
+    try (BinaryDataset dataset = BinaryDataset.open(path)) {
+      int[] order = dataset.shuffle(new SplittableRandom(3));
+      if (!Arrays.equals(order, dataset.shuffle(new SplittableRandom(3))))
+        throw new IllegalStateException("Epochs of the same seed differ");
+      if (Arrays.equals(order, dataset.shuffle(new SplittableRandom(4))))
+        throw new IllegalStateException("Epochs of different seeds are equal");
+
+      int[] sorted = order.clone();
+      Arrays.sort(sorted);
+      for (int i = 0; i < sorted.length; i++)
+        if (sorted[i] != i)
+          throw new IllegalStateException("Epoch is not a permutation of the rows");
+
+      ShapingNetwork first = network();
+      ShapingNetwork second = network();
+      for (int epoch = 0; epoch < 3; epoch++) {
+        dataset.feed(first, new SplittableRandom(epoch));
+        dataset.feed(second, new SplittableRandom(epoch));
+      }
+
+      ContextVector row = ContextVector.withCapacity(DIMENSION);
+      for (int r = 0; r < 100; r++) {
+        dataset.row(r, row);
+        if (!Arrays.equals(first.predict(row), second.predict(row)))
+          throw new IllegalStateException("Networks trained on epochs of the same seeds differ");
+      }
+    }
+    System.out.println("shuffled epochs are reproducible");
+  }
+
+  private static ShapingNetwork network() {
+    ShapingNetwork network = new ShapingNetworkBuilder()
+      .seed(5L)
+      .connectInRange(0, CLASSES - 1, new LayerBuilder().addLayer(Shapes.MEAN))
+      .build();
+    network.initialize(DIMENSION);
+    network.randomize();
+    return network;
+  }
+
+  /**
+   * Checks that short files, other files, newer versions, unknown types and truncated datasets are rejected
+   */
+  private static void foreign(Path path) throws IOException {
+    Files.write(path, new byte[16]);
+    reject(path, "File is too short to be a dataset");
+
+    Files.write(path, new byte[64]);
+    reject(path, "File is not a dataset");
+
+    write(path, BinaryDataset.FeatureType.FLOAT64, new double[2 * DIMENSION], new int[2]);
+    byte[] valid = Files.readAllBytes(path);
+
+    Files.write(path, patch(valid, 4, 2));
+    reject(path, "Unsupported dataset version 2");
+
+    byte[] type = valid.clone();
+    type[20] = 7;
+    Files.write(path, type);
+    reject(path, "Dataset holds an unknown feature or label type");
+
+    Files.write(path, Arrays.copyOf(valid, valid.length - 1));
+    reject(path, "Dataset is truncated");
+    System.out.println("foreign and truncated files are rejected");
+  }
+
+  private static byte[] patch(byte[] bytes, int offset, int value) {
+    byte[] patched = bytes.clone();
+    ByteBuffer.wrap(patched).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+    return patched;
+  }
+
+  private static void reject(Path path, String message) throws IOException {
+    try {
+      BinaryDataset.open(path).close();
+      throw new IllegalStateException("File was opened although it should fail with: " + message);
+    } catch (IllegalStateException e) {
+      if (!message.equals(e.getMessage()))
+        throw e;
+    }
+  }
+
+}
@@ -0,0 +1,238 @@
+import gg.clouke.ContextVector;
+import gg.clouke.DatasetReader;
+import gg.clouke.DatasetReaderBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reads generated CSV files and checks that every number parses exactly as {@link Double#parseDouble(String)} does,
+ * that rows split across tiny chunks or longer than a chunk come out unchanged, and that headers, {@code \r\n} line endings,
+ * label columns and malformed rows are handled as documented.
+ *
+ * @author Clouke
+ * @since 19.10.2026 14:10
+ * © shape-network - All Rights Reserved
+ */
+public class DatasetReaderCheck {
+
+  private static final String[] NUMBERS = {
+    "0", "-0", "-0.0", "+0", "0.0000", "1", "-1", ".5", "-.5", "5.", "+1.5", "1E5", "1e+5", "1e-5", " 2.5 ",
+    "9007199254740991", "9007199254740992", "9007199254740993", "-9007199254740993", "18014398509481985",
+    "1e22", "1e23", "1e-22", "1e-23", "123e20", "123e-25", "9.999999999999999e22",
+    "123456789012345678", "1234567890123456789", "123456789012345678901234567890", "1.2345678901234567890123",
+    "0.000000000000000000001234567890123456789", "12345678901234567890e-5", "100000000000000000000000000000",
+    "4.9e-324", "2.2250738585072014E-308", "1.7976931348623157e308", "1e400", "-1e-400", "0.1", "0.3", "3.141592653589793",
+    "NaN", "Infinity", "-Infinity", "1.5d", "2f"
+  };
+
+  private static final String[] INVALID = {
+    "1e", "1e+", "e5", ".", "-", "+", "1.2.3", "abc", "", "1e5x", "0x10", "1,5"
+  };
+
+  public static void main(String[] args) throws IOException {
+    Path path = Files.createTempFile("dataset", ".csv");
+    try {
+      numbers(path);
+      chunks(path);
+      lines(path);
+      malformed(path);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Parses every number as the feature of a row, against {@link Double#parseDouble(String)}
+   */
+  private static void numbers(Path path) throws IOException {
+    List<String> values = new ArrayList<>(Arrays.asList(NUMBERS));
+    Random random = new Random(23);
+    for (int i = 0; i < 100_000; i++)
+      values.add(randomNumber(random));
+
+    StringBuilder file = new StringBuilder();
+    for (String value : values)
+      file.append("0,").append(value).append('\n');
+    for (String value : INVALID)
+      file.append("0,").append(value).append('\n');
+    write(path, file.toString());
+
+    DatasetReader reader = new DatasetReaderBuilder()
+      .malformed(DatasetReader.Malformed.SKIP)
+      .labelColumn(0)
+      .chunkSize(4096)
+      .build();
+    List<double[]> rows = new ArrayList<>();
+    reader.read(path, (matrix, labels) -> {
+      for (int r = 0; r < matrix.rows(); r++)
+        rows.add(matrix.row(r, ContextVector.newVector()).transform());
+    });
+
+    if (rows.size() != values.size() || reader.skipped() != INVALID.length)
+      throw new IllegalStateException(rows.size() + " numbers parsed and " + reader.skipped() + " skipped, expected "
+        + values.size() + " and " + INVALID.length);
+    for (int i = 0; i < values.size(); i++) {
+      double expected = Double.parseDouble(values.get(i).trim());
+      if (Double.doubleToLongBits(rows.get(i)[0]) != Double.doubleToLongBits(expected))
+        throw new IllegalStateException(values.get(i) + " parsed as " + rows.get(i)[0] + " instead of " + expected);
+    }
+    System.out.println(values.size() + " numbers parse as Double.parseDouble, " + INVALID.length + " invalid ones are skipped");
+  }
+
+  private static String randomNumber(Random random) {
+    switch (random.nextInt(5)) {
+      case 0:
+        return Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(60) - 30));
+      case 1:
+        return Double.toString(Double.longBitsToDouble(random.nextLong())); // any bit pattern, including NaN and infinities
+      case 2:
+        return Long.toString(random.nextLong() >> random.nextInt(64));
+      case 3: {
+        StringBuilder digits = new StringBuilder(random.nextBoolean() ? "-" : "");
+        int length = 1 + random.nextInt(25);
+        for (int d = 0; d < length; d++)
+          digits.append((char) ('0' + random.nextInt(10)));
+        digits.insert(digits.length() - random.nextInt(length), '.');
+        return digits.toString();
+      }
+      default:
+        return (random.nextInt(20_000) - 10_000) + "e" + (random.nextInt(60) - 30);
+    }
+  }
+
+  /**
+   * Reads long rows with chunks far smaller than a row, so every row is split across chunks
+   */
+  private static void chunks(Path path) throws IOException {
+    int dimension = 12;
+    Random random = new Random(5);
+    double[][] expected = new double[2_000][dimension];
+    int[] labels = new int[expected.length];
+    StringBuilder file = new StringBuilder();
+    for (int r = 0; r < expected.length; r++) {
+      labels[r] = random.nextInt(7);
+      file.append(labels[r]);
+      for (int d = 0; d < dimension; d++) {
+        expected[r][d] = random.nextGaussian() * 1e3;
+        file.append(',').append(expected[r][d]);
+      }
+      file.append('\n');
+    }
+    write(path, file.toString());
+
+    for (int chunkSize : new int[] {1, 7, 16, 100}) {
+      DatasetReader reader = new DatasetReaderBuilder()
+        .labelColumn(0)
+        .parallelism(3)
+        .chunkSize(chunkSize)
+        .build();
+      compare("chunk size " + chunkSize, reader, path, expected, labels);
+    }
+    System.out.println("rows split across chunks read unchanged");
+  }
+
+  /**
+   * Reads a header, mixed line endings, blank lines and a label in the middle column
+   */
+  private static void lines(Path path) throws IOException {
+    write(path, "a;label;b\r\n1.5;2;-3\r\n\r\n4;0;5e-1\n\n-0;1;.25\r\n");
+    DatasetReader reader = new DatasetReaderBuilder()
+      .delimiter(';')
+      .header(true)
+      .labelColumn(1)
+      .chunkSize(8)
+      .build();
+    double[][] expected = {{1.5, -3}, {4, 0.5}, {-0.0, 0.25}};
+    compare("header and line endings", reader, path, expected, new int[] {2, 0, 1});
+
+    write(path, "x,y,label\r\n1,2,3");
+    reader = new DatasetReaderBuilder()
+      .header(true)
+      .build();
+    compare("last line without a break", reader, path, new double[][] {{1, 2}}, new int[] {3});
+    System.out.println("headers, line endings and label columns are read");
+  }
+
+  /**
+   * Skips malformed rows, or fails at the byte offset of the first one
+   */
+  private static void malformed(Path path) throws IOException {
+    String header = "f1,f2,label\r\n";
+    String valid = "1,2,0\r\n";
+    String[] bad = {"1,2\r\n", "1,2,3,4\r\n", "1,x,0\r\n", "1,2,-1\r\n", "1,2,0.5\r\n"};
+    StringBuilder file = new StringBuilder(header);
+    long firstBad = -1;
+    int rows = 0;
+    for (int i = 0; i < 40; i++) {
+      if (i % 8 == 3) {
+        if (firstBad < 0)
+          firstBad = file.length();
+        file.append(bad[(i / 8) % bad.length]);
+      } else {
+        file.append(valid);
+        rows++;
+      }
+    }
+    write(path, file.toString());
+
+    for (int chunkSize : new int[] {5, 64, 1 << 16}) {
+      DatasetReader skipping = new DatasetReaderBuilder()
+        .header(true)
+        .malformed(DatasetReader.Malformed.SKIP)
+        .chunkSize(chunkSize)
+        .build();
+      skipping.read(path, (matrix, labels) -> {});
+      if (skipping.rows() != rows || skipping.skipped() != bad.length)
+        throw new IllegalStateException("Chunk size " + chunkSize + ": " + skipping.rows() + " rows read and "
+          + skipping.skipped() + " skipped, expected " + rows + " and " + bad.length);
+
+      DatasetReader failing = new DatasetReaderBuilder()
+        .header(true)
+        .malformed(DatasetReader.Malformed.FAIL)
+        .parallelism(4)
+        .chunkSize(chunkSize)
+        .build();
+      try {
+        failing.read(path, (matrix, labels) -> {});
+        throw new IllegalStateException("Chunk size " + chunkSize + ": malformed rows did not fail");
+      } catch (IllegalStateException e) {
+        if (!("Malformed row at byte " + firstBad).equals(e.getMessage()))
+          throw new IllegalStateException("Chunk size " + chunkSize + ": expected the malformed row at byte " + firstBad, e);
+      }
+    }
+    System.out.println("malformed rows are skipped, or fail at byte " + firstBad);
+  }
+
+  private static void compare(String name, DatasetReader reader, Path path, double[][] expected, int[] expectedLabels) throws IOException {
+    List<double[]> rows = new ArrayList<>();
+    List<Integer> labels = new ArrayList<>();
+    reader.read(path, (matrix, batchLabels) -> {
+      for (int r = 0; r < matrix.rows(); r++) {
+        rows.add(matrix.row(r, ContextVector.newVector()).transform());
+        labels.add(batchLabels[r]);
+      }
+    });
+
+    if (rows.size() != expected.length)
+      throw new IllegalStateException(name + ": " + rows.size() + " rows read instead of " + expected.length);
+    for (int r = 0; r < expected.length; r++) {
+      for (int d = 0; d < expected[r].length; d++)
+        if (Double.doubleToLongBits(rows.get(r)[d]) != Double.doubleToLongBits(expected[r][d]))
+          throw new IllegalStateException(name + ": row " + r + " differs");
+      if (labels.get(r) != expectedLabels[r])
+        throw new IllegalStateException(name + ": label of row " + r + " differs");
+    }
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.US_ASCII));
+  }
+
+}
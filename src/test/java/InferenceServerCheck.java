@@ -0,0 +1,103 @@
+import gg.clouke.CompiledNetwork;
+import gg.clouke.ContextVector;
+import gg.clouke.InferenceClient;
+import gg.clouke.InferenceServer;
+import gg.clouke.InferenceServerBuilder;
+import gg.clouke.LayerBuilder;
+import gg.clouke.Shapes;
+import gg.clouke.ShapingNetwork;
+import gg.clouke.ShapingNetworkBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a compiled network on localhost to many concurrent clients, and checks that every answer equals the local prediction,
+ * that requests are batched, and that requests of the wrong dimension are rejected.
+ *
+ * @author Clouke
+ * @since 19.10.2026 03:40
+ * © shape-network - All Rights Reserved
+ */
+public class InferenceServerCheck {
+
+  private static final int DIMENSION = 16;
+  private static final int CLASSES = 10;
+  private static final int SAMPLES = 4_000;
+  private static final int CLIENTS = 16;
+
+  public static void main(String[] args) throws Exception {
+    ShapingNetwork network = new ShapingNetworkBuilder()
+      .seed(1L)
+      .connectInRange(0, CLASSES - 1,
+        new LayerBuilder()
+          .addLayer(Shapes.MEAN, 2)
+          .addLayer(Shapes.MAX)
+      )
+      .build();
+    network.initialize(DIMENSION);
+    network.randomize();
+
+    Random random = new Random(3);
+    ContextVector[] samples = new ContextVector[SAMPLES];
+    for (int s = 0; s < SAMPLES; s++) {
+      double[] values = new double[DIMENSION];
+      for (int i = 0; i < DIMENSION; i++)
+        values[i] = random.nextDouble() + (i % CLASSES == s % CLASSES ? 1.0 : 0.0);
+      samples[s] = new ContextVector(values);
+      network.feed(samples[s], s % CLASSES);
+    }
+
+    CompiledNetwork compiled = network.compile();
+    try (InferenceServer server = new InferenceServerBuilder(compiled)
+      .maxBatchSize(64)
+      .maxDelay(2, TimeUnit.MILLISECONDS)
+      .start()) {
+      ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+      try {
+        List<Future<Integer>> answers = new ArrayList<>(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+          int client = c;
+          answers.add(clients.submit(() -> {
+            int answered = 0;
+            try (InferenceClient connection = new InferenceClient("localhost", server.port())) {
+              for (int s = client; s < SAMPLES; s += CLIENTS) {
+                if (!Arrays.equals(compiled.predict(samples[s]), connection.predict(samples[s])))
+                  throw new IllegalStateException("Answer to sample " + s + " differs from the local prediction");
+                answered++;
+              }
+            }
+            return answered;
+          }));
+        }
+
+        int answered = 0;
+        for (Future<Integer> answer : answers)
+          answered += answer.get();
+        if (answered != SAMPLES)
+          throw new IllegalStateException("Only " + answered + " of " + SAMPLES + " requests were answered");
+      } finally {
+        clients.shutdown();
+      }
+
+      try (InferenceClient connection = new InferenceClient("localhost", server.port())) {
+        connection.predict(new ContextVector(new double[DIMENSION + 1]));
+        throw new IllegalStateException("A request of the wrong dimension was answered");
+      } catch (IllegalStateException e) {
+        if (!e.getMessage().startsWith("Dimension of input"))
+          throw e;
+      }
+
+      System.out.println("virtual threads: " + server.virtualThreads() + ", " + server.stats());
+      if (server.stats().maxBatchSize() < 2)
+        throw new IllegalStateException("Concurrent requests were never batched");
+    }
+  }
+
+}
@@ -0,0 +1,228 @@
+import gg.clouke.CompiledNetwork;
+import gg.clouke.ContextVector;
+import gg.clouke.LayerBuilder;
+import gg.clouke.ModelSerializer;
+import gg.clouke.Precision;
+import gg.clouke.Predictor;
+import gg.clouke.RandomProjection;
+import gg.clouke.RowMatrix;
+import gg.clouke.Shapes;
+import gg.clouke.ShapingFunction;
+import gg.clouke.ShapingNetwork;
+import gg.clouke.ShapingNetworkBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Saves networks of every precision, lazy and eager, with and without a projection and with a custom shaping function,
+ * and checks that the networks loaded by {@link ModelSerializer#read(Path)} and {@link ModelSerializer#map(Path)}
+ * predict exactly as the saved ones, also once the restored network keeps training.
+ * Files whose sections overlap, are misaligned or run past the file are rejected by both.
+ *
+ * @author Clouke
+ * @since 19.10.2026 03:10
+ * © shape-network - All Rights Reserved
+ */
+public class ModelRoundTrip {
+
+  private static final int DIMENSION = 24;
+  private static final int PROJECTION = 10;
+  private static final int CLASSES = 4;
+  private static final int TRAIN = 400;
+  private static final int CONTINUE = 200;
+  private static final int TEST = 64;
+
+  private static final int LAYOUT_OFFSET = 56;
+  private static final int WEIGHTS_OFFSET = 64;
+  private static final int STATE_OFFSET = 72;
+
+  private static final ShapingFunction SCALED = (neuron, n, y) -> {
+    ContextVector shape = y.copy();
+    for (int i = 0; i < shape.dimension(); i++)
+      shape.multiply(i, 0.5);
+    return shape;
+  };
+
+  public static void main(String[] args) throws IOException {
+    ModelSerializer serializer = new ModelSerializer()
+      .register("scaled", SCALED);
+
+    int cases = 0;
+    for (Precision precision : Precision.values())
+      for (boolean lazy : new boolean[] {false, true})
+        for (int projection : new int[] {0, PROJECTION}) {
+          check(serializer, precision, lazy, projection);
+          cases++;
+        }
+    System.out.println(cases + " round trips predict exactly");
+    corrupt(serializer);
+  }
+
+  /**
+   * Patches the section offsets in the header of a saved model, and checks that reading and mapping it fail
+   */
+  private static void corrupt(ModelSerializer serializer) throws IOException {
+    ShapingNetwork network = new ShapingNetworkBuilder()
+      .seed(7L)
+      .connectInRange(0, CLASSES - 1, new LayerBuilder().addLayer(Shapes.MEAN, 2))
+      .build();
+    network.initialize(DIMENSION);
+    network.randomize();
+
+    Path path = Files.createTempFile("model", ".snm");
+    try {
+      serializer.write(network, path);
+      long layout = header(path, LAYOUT_OFFSET);
+      long weights = header(path, WEIGHTS_OFFSET);
+      long state = header(path, STATE_OFFSET);
+      long size = Files.size(path);
+
+      reject(serializer, path, "state within the weights", STATE_OFFSET, weights + Double.BYTES, state);
+      reject(serializer, path, "misaligned weights", WEIGHTS_OFFSET, weights + 4, weights);
+      reject(serializer, path, "weights within the layout", WEIGHTS_OFFSET, layout + Double.BYTES, weights);
+      reject(serializer, path, "sections past the file", STATE_OFFSET, size, state);
+      reject(serializer, path, "overflowing sections", STATE_OFFSET, Long.MAX_VALUE - 7, state);
+    } finally {
+      Files.delete(path);
+    }
+    System.out.println("corrupt models are rejected");
+  }
+
+  private static void reject(ModelSerializer serializer, Path path, String name, int field, long value, long original) throws IOException {
+    patch(path, field, value);
+    try {
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          if (attempt == 0)
+            serializer.read(path);
+          else
+            serializer.map(path);
+          throw new IllegalStateException("Model with " + name + " was loaded");
+        } catch (IllegalStateException e) {
+          if (!"Model is corrupt or truncated".equals(e.getMessage()))
+            throw e;
+        }
+      }
+    } finally {
+      patch(path, field, original);
+    }
+  }
+
+  private static long header(Path path, int field) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(buffer, field);
+      return buffer.getLong(0);
+    }
+  }
+
+  private static void patch(Path path, int field, long value) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, value);
+      channel.write(buffer, field);
+    }
+  }
+
+  private static void check(ModelSerializer serializer, Precision precision, boolean lazy, int projection) throws IOException {
+    String name = precision + (lazy ? ", lazy" : ", eager") + (projection > 0 ? ", projected" : "");
+    ShapingNetworkBuilder builder = new ShapingNetworkBuilder()
+      .seed(7L)
+      .lazy(lazy)
+      .precision(precision)
+      .connectInRange(0, CLASSES - 1,
+        new LayerBuilder()
+          .addLayer(Shapes.MEAN, 2)
+          .addLayer(Shapes.MAX)
+          .addLayer(SCALED)
+      );
+    if (projection > 0)
+      builder.project(projection, 11L);
+
+    ShapingNetwork network = builder.build();
+    network.initialize(DIMENSION);
+    network.randomize();
+
+    Random random = new Random(42);
+    for (int i = 0; i < TRAIN; i++)
+      network.feed(sample(random, i % CLASSES), i % CLASSES);
+
+    double[] test = new double[TEST * DIMENSION];
+    for (int b = 0; b < TEST; b++)
+      sample(random, b % CLASSES).copyInto(test, b * DIMENSION);
+    RowMatrix rows = RowMatrix.of(test, DIMENSION);
+
+    Path path = Files.createTempFile("model", ".snm");
+    try {
+      serializer.write(network, path);
+      ShapingNetwork restored = serializer.read(path);
+      Predictor mapped = serializer.map(path);
+
+      compare(name + ", read", network, restored, rows);
+      compare(name + ", map", compiled(network), mapped, rows);
+
+      for (int i = 0; i < CONTINUE; i++) {
+        ContextVector vector = sample(random, i % CLASSES);
+        network.feed(vector, i % CLASSES);
+        restored.feed(vector, i % CLASSES);
+      }
+      compare(name + ", read and trained", network, restored, rows);
+    } finally {
+      Files.delete(path);
+    }
+    System.out.println(name + ": OK");
+  }
+
+  private static ContextVector sample(Random random, int target) {
+    double[] values = new double[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++)
+      values[i] = 0.1 + random.nextDouble() + (i % CLASSES == target ? 1.0 : 0.0);
+    return new ContextVector(values);
+  }
+
+  private static Predictor compiled(ShapingNetwork network) {
+    CompiledNetwork compiled = network.compile();
+    RandomProjection projection = network.projection();
+    if (projection == null)
+      return compiled;
+
+    return new Predictor() {
+      @Override
+      public double[] predict(ContextVector vector) {
+        return compiled.predict(projection.project(vector));
+      }
+
+      @Override
+      public double[][] predict(double[] inputs, int rows) {
+        return compiled.predict(projection.project(inputs, rows), rows);
+      }
+
+      @Override
+      public double[][] predict(RowMatrix matrix) {
+        return compiled.predict(projection.project(matrix), matrix.rows());
+      }
+    };
+  }
+
+  private static void compare(String name, Predictor expected, Predictor actual, RowMatrix rows) {
+    ContextVector row = ContextVector.withCapacity(rows.dimension());
+    for (int b = 0; b < rows.rows(); b++) {
+      rows.row(b, row);
+      if (!Arrays.equals(expected.predict(row), actual.predict(row)))
+        throw new IllegalStateException(name + ": prediction of row " + b + " differs");
+    }
+
+    if (!Arrays.deepEquals(expected.predict(rows.array(), rows.rows()), actual.predict(rows.array(), rows.rows())))
+      throw new IllegalStateException(name + ": batched predictions differ");
+    if (!Arrays.deepEquals(expected.predict(rows), actual.predict(rows)))
+      throw new IllegalStateException(name + ": predictions of the row view differ");
+  }
+
+}
@@ -0,0 +1,107 @@
+import gg.clouke.ContextVector;
+import gg.clouke.LayerBuilder;
+import gg.clouke.Shapes;
+import gg.clouke.ShapingNetwork;
+import gg.clouke.ShapingNetworkBuilder;
+
+import java.util.Random;
+
+/**
+ * Compares the accuracy and prediction speed of a network on 4096-dimensional inputs
+ * against the same network with its inputs randomly projected to fewer dimensions.
+ *
+ * @author Clouke
+ * @since 18.10.2026 21:05
+ * © shape-network - All Rights Reserved
+ */
+public class ProjectionBenchmark {
+
+  private static final int DIMENSION = 4096;
+  private static final int CLASSES = 8;
+  private static final int SAMPLES = 2_000;
+  private static final int NEURONS = 16;
+  private static final double NOISE = 6.0;
+
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    double[][] centers = new double[CLASSES][DIMENSION];
+    for (double[] center : centers)
+      for (int i = 0; i < DIMENSION; i++)
+        center[i] = random.nextGaussian();
+
+    ContextVector[] train = samples(centers, random);
+    ContextVector[] test = samples(centers, random);
+
+    Result full = run(train, test, 0);
+    System.out.println("dimension=" + DIMENSION + ", " + full);
+    for (int dimension : new int[] {1024, 256, 64}) {
+      Result projected = run(train, test, dimension);
+      System.out.printf("dimension=%d, %s, speedup=%.1fx%n", dimension, projected, full.nanos / (double) projected.nanos);
+    }
+  }
+
+  private static ContextVector[] samples(double[][] centers, Random random) {
+    ContextVector[] samples = new ContextVector[SAMPLES];
+    for (int s = 0; s < SAMPLES; s++) {
+      double[] center = centers[s % CLASSES];
+      double[] values = new double[DIMENSION];
+      for (int i = 0; i < DIMENSION; i++)
+        values[i] = center[i] + random.nextGaussian() * NOISE;
+      samples[s] = new ContextVector(values);
+    }
+    return samples;
+  }
+
+  private static Result run(ContextVector[] train, ContextVector[] test, int projection) {
+    ShapingNetworkBuilder builder = new ShapingNetworkBuilder()
+      .connectInRange(0, CLASSES - 1,
+        new LayerBuilder()
+          .addLayer(Shapes.MEAN, NEURONS)
+      );
+    if (projection > 0)
+      builder.project(projection, 7L);
+
+    ShapingNetwork network = builder.build();
+    network.initialize(DIMENSION);
+    network.randomize(new Random(1));
+    for (int s = 0; s < train.length; s++)
+      network.feed(train[s], s % CLASSES);
+
+    // warms up the prediction path before timing it
+    for (int s = 0; s < test.length; s++)
+      network.predict(test[s]);
+
+    int correct = 0;
+    long start = System.nanoTime();
+    for (int s = 0; s < test.length; s++)
+      if (argmax(network.predict(test[s])) == s % CLASSES)
+        correct++;
+    long nanos = System.nanoTime() - start;
+    return new Result(correct / (double) test.length, nanos);
+  }
+
+  private static int argmax(double[] values) {
+    int best = 0;
+    for (int i = 1; i < values.length; i++)
+      if (values[i] > values[best])
+        best = i;
+    return best;
+  }
+
+  private static final class Result {
+
+    private final double accuracy;
+    private final long nanos;
+
+    private Result(double accuracy, long nanos) {
+      this.accuracy = accuracy;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("accuracy=%.4f, predict=%.1fus", accuracy, nanos / 1_000.0 / SAMPLES);
+    }
+  }
+
+}